@@ -0,0 +1,27 @@
+package com.goatyang.cmbackend.benchmark;
+
+import com.goatyang.cmbackend.CmBackendApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 基准测试用的Spring上下文
+ * 使用测试配置中的内嵌H2（MySQL兼容模式）代替MySQL，每次试验（trial）启动一次
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(CmBackendApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "logging.level.root=WARN",
+                        "logging.level.com.goatyang.cmbackend=WARN",
+                        // 基准数据由生成器写入，不需要启动预热
+                        "cmbackend.hot-comments.warm-articles=0")
+                .run();
+    }
+}
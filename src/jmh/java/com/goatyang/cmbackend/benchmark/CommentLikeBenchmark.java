@@ -0,0 +1,85 @@
+package com.goatyang.cmbackend.benchmark;
+
+import com.goatyang.cmbackend.model.User;
+import com.goatyang.cmbackend.service.CommentLikeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 热点评论点赞竞争：8个线程（各自是不同用户）反复对同一条评论点赞/取消点赞，
+ * 每次调用都会真正翻转点赞状态，走完整的写路径
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(CommentLikeBenchmark.THREADS)
+@Fork(1)
+public class CommentLikeBenchmark {
+
+    static final int THREADS = 8;
+    private static final String ARTICLE = "bench/comment-like";
+
+    private ConfigurableApplicationContext context;
+    private CommentLikeService commentLikeService;
+    private Long hotCommentId;
+    private final List<User> likers = new ArrayList<>();
+    private final AtomicInteger nextLiker = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        commentLikeService = context.getBean(CommentLikeService.class);
+
+        DataGenerator generator = new DataGenerator(context);
+        hotCommentId = generator.comments(generator.user(), ARTICLE, 1).get(0);
+        for (int i = 0; i < THREADS; i++) {
+            likers.add(generator.user());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** 每个基准线程固定一个点赞用户，并记住自己当前的点赞状态 */
+    @State(Scope.Thread)
+    public static class Liker {
+
+        private Long githubId;
+        private boolean liked;
+
+        @Setup(Level.Trial)
+        public void setUp(CommentLikeBenchmark benchmark) {
+            githubId = benchmark.likers.get(benchmark.nextLiker.getAndIncrement() % THREADS).getGithubId();
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> toggleLike(Liker liker) {
+        liker.liked = !liker.liked;
+        return liker.liked
+                ? commentLikeService.likeComment(liker.githubId, hotCommentId)
+                : commentLikeService.unlikeComment(liker.githubId, hotCommentId);
+    }
+}
@@ -0,0 +1,85 @@
+package com.goatyang.cmbackend.benchmark;
+
+import com.goatyang.cmbackend.dto.CommentCursor;
+import com.goatyang.cmbackend.dto.CommentView;
+import com.goatyang.cmbackend.dto.CursorPage;
+import com.goatyang.cmbackend.model.Comment;
+import com.goatyang.cmbackend.model.User;
+import com.goatyang.cmbackend.repository.CommentRepository;
+import com.goatyang.cmbackend.service.ArticleCommentCache;
+import com.goatyang.cmbackend.service.CommentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文章评论分页读取：文章分别有 10 / 1k / 10k 条评论时，
+ * 第一页（命中缓存 / 未命中缓存）与中间某页（keyset游标）的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommentPageBenchmark {
+
+    private static final String ARTICLE = "bench/comment-page";
+
+    @Param({"10", "1000", "10000"})
+    private int comments;
+
+    private ConfigurableApplicationContext context;
+    private CommentService commentService;
+    private ArticleCommentCache articleCommentCache;
+    private String middleCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        commentService = context.getBean(CommentService.class);
+        articleCommentCache = context.getBean(ArticleCommentCache.class);
+
+        DataGenerator generator = new DataGenerator(context);
+        User author = generator.user();
+        List<Long> commentIds = generator.comments(author, ARTICLE, comments);
+        Comment middle = context.getBean(CommentRepository.class)
+                .findById(commentIds.get(commentIds.size() / 2)).orElseThrow();
+        middleCursor = new CommentCursor(middle.getCreatedAt(), middle.getCommentId()).encode();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CursorPage<CommentView> firstPageCached() {
+        return commentService.getCommentPageByArticlePath(ARTICLE, null, CommentService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPage<CommentView> firstPageUncached() {
+        articleCommentCache.evict(ARTICLE);
+        return commentService.getCommentPageByArticlePath(ARTICLE, null, CommentService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPage<CommentView> middlePage() {
+        return commentService.getCommentPageByArticlePath(ARTICLE, middleCursor, CommentService.DEFAULT_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,94 @@
+package com.goatyang.cmbackend.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goatyang.cmbackend.dto.CommentView;
+import com.goatyang.cmbackend.model.Comment;
+import com.goatyang.cmbackend.model.User;
+import com.goatyang.cmbackend.util.ApiResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 序列化评论列表响应：ApiResponse&lt;List&lt;Comment&gt;&gt;（实体，含完整User）
+ * 与 ApiResponse&lt;List&lt;CommentView&gt;&gt;（投影DTO）对比，不依赖数据库
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommentSerializationBenchmark {
+
+    private static final long SEED = 20240601L;
+
+    @Param({"20", "100"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<List<Comment>> entityResponse;
+    private ApiResponse<List<CommentView>> viewResponse;
+
+    @Setup
+    public void setUp() {
+        // 与Spring Boot默认的ObjectMapper配置一致（注册JavaTimeModule等）
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Random random = new Random(SEED);
+        List<Comment> comments = new ArrayList<>(size);
+        List<CommentView> views = new ArrayList<>(size);
+        LocalDateTime base = LocalDateTime.of(2024, 6, 1, 0, 0);
+        for (int i = 0; i < size; i++) {
+            User user = new User();
+            user.setId((long) i % 10);
+            user.setGithubId(1_000_000L + i % 10);
+            user.setUsername("bench-" + i % 10);
+            user.setAvatarUrl("https://avatars.example.com/u/" + i % 10);
+            user.setProfileUrl("https://github.com/bench-" + i % 10);
+            user.setEmail("bench-" + i % 10 + "@example.com");
+            user.setCreatedAt(base);
+            user.setUpdatedAt(base);
+
+            Comment comment = new Comment();
+            comment.setCommentId((long) i);
+            comment.setUser(user);
+            comment.setArticlePath("bench/serialization");
+            comment.setContent("评论内容".repeat(5 + random.nextInt(40)));
+            comment.setLikeCount((long) random.nextInt(51));
+            comment.setCreatedAt(base.plusSeconds(i));
+            comments.add(comment);
+
+            views.add(new CommentView(comment.getCommentId(), comment.getContent(), comment.getLikeCount(),
+                    comment.getCreatedAt(), user.getUsername(), user.getAvatarUrl()));
+        }
+        entityResponse = ApiResponse.success(comments);
+        viewResponse = ApiResponse.success(views);
+    }
+
+    @Benchmark
+    public byte[] entities() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(entityResponse);
+    }
+
+    @Benchmark
+    public byte[] projections() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(viewResponse);
+    }
+}
@@ -0,0 +1,102 @@
+package com.goatyang.cmbackend.benchmark;
+
+import com.goatyang.cmbackend.dto.CommentImportRecord;
+import com.goatyang.cmbackend.model.User;
+import com.goatyang.cmbackend.repository.UserRepository;
+import com.goatyang.cmbackend.service.CommentImportService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 可复现的基准数据生成器
+ * 随机数种子固定，同样的调用顺序总是生成同样的用户、评论内容、点赞数与时间；
+ * 评论走批量导入（号段分配ID + JDBC批处理），点赞用JDBC批量写入，生成1万条评论只需几百毫秒
+ */
+final class DataGenerator {
+
+    private static final long SEED = 20240601L;
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 6, 1, 0, 0);
+    private static final String ALPHABET = "评论内容测试数据点赞文章博客abcdefghijklmnopqrstuvwxyz ";
+    private static final int BATCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final CommentImportService commentImportService;
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random = new Random(SEED);
+    private long nextGithubId = 1_000_000L;
+
+    DataGenerator(ApplicationContext context) {
+        this.userRepository = context.getBean(UserRepository.class);
+        this.commentImportService = context.getBean(CommentImportService.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    /** 创建一个有评论权限的用户 */
+    User user() {
+        User user = new User();
+        long githubId = nextGithubId++;
+        user.setGithubId(githubId);
+        user.setUsername("bench-" + githubId);
+        user.setAvatarUrl("https://avatars.example.com/u/" + githubId);
+        return userRepository.save(user);
+    }
+
+    /**
+     * 为某篇文章写入count条评论，创建时间每条间隔一秒递增，点赞数在0~50之间
+     *
+     * @return 评论ID（按创建时间升序）
+     */
+    List<Long> comments(User author, String articlePath, int count) {
+        List<CommentImportRecord> records = new ArrayList<>(count);
+        List<Long> likeCounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new CommentImportRecord(CommentImportRecord.TYPE_COMMENT, null, null, null,
+                    author.getGithubId(), author.getUsername(), author.getAvatarUrl(),
+                    articlePath, content(), BASE_TIME.plusSeconds(i)));
+            likeCounts.add((long) random.nextInt(51));
+        }
+        commentImportService.importRecords(records.iterator());
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT comment_id FROM comment WHERE article_path = ? ORDER BY created_at, comment_id",
+                Long.class, articlePath);
+        // 直接写入点赞数，不生成对应的点赞记录
+        List<Object[]> updates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            updates.add(new Object[]{likeCounts.get(i), ids.get(i)});
+        }
+        batch("UPDATE comment SET like_count = ? WHERE comment_id = ?", updates);
+        return ids;
+    }
+
+    /** 用户对给定评论逐条点赞（有效点赞），并同步评论点赞数 */
+    void likes(User liker, List<Long> commentIds) {
+        List<Object[]> rows = new ArrayList<>(commentIds.size());
+        for (Long commentId : commentIds) {
+            rows.add(new Object[]{commentId, liker.getId(), Timestamp.valueOf(BASE_TIME)});
+        }
+        batch("INSERT INTO comment_like (comment_id, user_id, is_canceled, created_at) VALUES (?, ?, false, ?)", rows);
+        List<Object[]> updates = commentIds.stream().map(id -> new Object[]{id}).toList();
+        batch("UPDATE comment SET like_count = like_count + 1 WHERE comment_id = ?", updates);
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+
+    private String content() {
+        int length = 20 + random.nextInt(181);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.goatyang.cmbackend.benchmark;
+
+import com.goatyang.cmbackend.repository.CommentRepository;
+import com.goatyang.cmbackend.service.LikeCountAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点评论点赞数累加：64个线程同时给同一条评论点赞数加1，
+ * 对比逐次 UPDATE like_count = like_count + 1（同一行上排队加锁）与聚合器在内存中累加、定时批量写回
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(LikeCountAggregatorBenchmark.THREADS)
+@Fork(1)
+public class LikeCountAggregatorBenchmark {
+
+    static final int THREADS = 64;
+    private static final String ARTICLE = "bench/like-aggregator";
+
+    private ConfigurableApplicationContext context;
+    private CommentRepository commentRepository;
+    private LikeCountAggregator likeCountAggregator;
+    private Long hotCommentId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        commentRepository = context.getBean(CommentRepository.class);
+        likeCountAggregator = context.getBean(LikeCountAggregator.class);
+
+        DataGenerator generator = new DataGenerator(context);
+        hotCommentId = generator.comments(generator.user(), ARTICLE, 1).get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void rowUpdate() {
+        commentRepository.incrementLikeCount(hotCommentId);
+    }
+
+    @Benchmark
+    public void aggregated() {
+        likeCountAggregator.add(hotCommentId, ARTICLE, 1);
+    }
+}
@@ -0,0 +1,74 @@
+package com.goatyang.cmbackend.benchmark;
+
+import com.goatyang.cmbackend.controller.AdminUserController;
+import com.goatyang.cmbackend.model.User;
+import com.goatyang.cmbackend.util.ApiResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 管理端同步删除用户：被删用户发布了N条评论（每条都被另一用户点赞），
+ * 同时点赞了另一用户的N条评论；每次迭代前重新生成一名这样的用户，只计删除本身的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class UserCascadeDeleteBenchmark {
+
+    @Param({"10", "1000"})
+    private int commentsPerUser;
+
+    private ConfigurableApplicationContext context;
+    private AdminUserController adminUserController;
+    private DataGenerator generator;
+    private User bystander;
+    private List<Long> bystanderComments;
+    private int round;
+    private Long victimId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        adminUserController = context.getBean(AdminUserController.class);
+        generator = new DataGenerator(context);
+        bystander = generator.user();
+        bystanderComments = generator.comments(bystander, "bench/cascade-bystander", commentsPerUser);
+    }
+
+    @Setup(Level.Iteration)
+    public void createVictim() {
+        User victim = generator.user();
+        List<Long> victimComments = generator.comments(victim, "bench/cascade-" + round++, commentsPerUser);
+        generator.likes(bystander, victimComments);
+        generator.likes(victim, bystanderComments);
+        victimId = victim.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ApiResponse<?> deleteUser() {
+        return adminUserController.deleteUser(victimId, false);
+    }
+}
@@ -2,8 +2,10 @@ package com.goatyang.cmbackend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CmBackendApplication {
     public static void main(String[] args) {
         SpringApplication.run(CmBackendApplication.class, args);
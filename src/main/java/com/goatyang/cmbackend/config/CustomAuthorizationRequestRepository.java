@@ -1,10 +1,12 @@
 package com.goatyang.cmbackend.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
 import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+@Slf4j
 public class CustomAuthorizationRequestRepository implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
 
     @Override
@@ -19,7 +21,7 @@ public class CustomAuthorizationRequestRepository implements AuthorizationReques
         request.getSession().setAttribute("authorization_request", authorizationRequest);
         
         String redirectUri = request.getParameter("redirect_uri");
-        System.out.println("redirectUri" + redirectUri);
+        log.debug("保存登录前的跳转地址: {}", redirectUri);
         if (redirectUri != null) {
             request.getSession().setAttribute("redirect_uri", redirectUri);
         }
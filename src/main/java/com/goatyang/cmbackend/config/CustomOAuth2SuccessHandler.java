@@ -6,6 +6,7 @@ import com.goatyang.cmbackend.repository.UserRepository;
 import com.goatyang.cmbackend.util.ApiResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 import java.util.Optional;
 
+@Slf4j
 @Component
 public class CustomOAuth2SuccessHandler implements AuthenticationSuccessHandler {
 
@@ -29,7 +31,7 @@ public class CustomOAuth2SuccessHandler implements AuthenticationSuccessHandler
                                         HttpServletResponse response,
                                         Authentication authentication) throws IOException {
 
-        System.out.println("CustomOAuth2SuccessHandler onAuthenticationSuccess");
+        log.debug("OAuth2登录成功回调");
 
         // 获取 GitHub 用户信息
         OAuth2User oAuth2User = (OAuth2User) authentication.getPrincipal();
@@ -52,7 +54,7 @@ public class CustomOAuth2SuccessHandler implements AuthenticationSuccessHandler
         // 用户存在 → 跳转回登录时的页面
         String redirectUri = (String) request.getSession().getAttribute("redirect_uri");
         String targetUrl = redirectUri != null ? redirectUri : "http://localhost:8080/";
-        System.out.println("登录成功，跳转到: " + targetUrl);
+        log.debug("登录成功，跳转到: {}", targetUrl);
 
         response.sendRedirect(targetUrl);
     }
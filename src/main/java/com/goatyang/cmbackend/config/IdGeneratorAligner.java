@@ -0,0 +1,53 @@
+package com.goatyang.cmbackend.config;
+
+import com.goatyang.cmbackend.model.Comment;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时对齐评论ID号段表的起始值
+ * 评论表原先使用自增主键，改为按号段分配（CommentIdAllocator）后 id_generator 中的值必须大于现有最大评论ID，
+ * 否则新分配的ID会与历史评论冲突。只会增大、不会回退，多实例同时启动也是安全的；
+ * 号段表不对应实体，不存在时在这里创建
+ */
+@Slf4j
+@Component
+public class IdGeneratorAligner {
+
+    private static final String SEQUENCE_NAME = "comment";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // 依赖EntityManagerFactory，保证在Hibernate建表之后执行
+    public IdGeneratorAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS id_generator (sequence_name VARCHAR(255) NOT NULL, " +
+                "next_val BIGINT, PRIMARY KEY (sequence_name))");
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(comment_id), 0) FROM comment", Long.class);
+        // 分配器把读到的值当作号段上界，留出一个号段保证分配的ID都大于现有最大ID
+        long nextVal = (maxId == null ? 0 : maxId) + 1 + Comment.ID_ALLOCATION_SIZE;
+        if (update(nextVal) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO id_generator (sequence_name, next_val) VALUES (?, ?)",
+                        SEQUENCE_NAME, nextVal);
+            } catch (DuplicateKeyException e) {
+                // 其他实例刚插入了该行
+                update(nextVal);
+            }
+        }
+        log.info("评论ID生成器已对齐: maxCommentId={}", maxId);
+    }
+
+    private int update(long nextVal) {
+        return jdbcTemplate.update("UPDATE id_generator SET next_val = GREATEST(next_val, ?) WHERE sequence_name = ?",
+                nextVal, SEQUENCE_NAME);
+    }
+}
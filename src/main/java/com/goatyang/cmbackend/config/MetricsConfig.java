@@ -0,0 +1,20 @@
+package com.goatyang.cmbackend.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 监控指标配置
+ * HTTP接口耗时、Hikari连接池、Hibernate统计、JVM等指标由 Actuator 自动注册，
+ * 这里补充按请求统计SQL条数所需的 Hibernate 钩子
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountInspectorCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector());
+    }
+}
@@ -0,0 +1,12 @@
+package com.goatyang.cmbackend.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 评论审核流水线配置，审核阶段见 ModerationStage 的各实现
+ */
+@Configuration
+@EnableConfigurationProperties(ModerationProperties.class)
+public class ModerationConfig {
+}
@@ -0,0 +1,49 @@
+package com.goatyang.cmbackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 评论审核流水线配置（cmbackend.moderation.*）
+ *
+ * @param queueCapacity      待审核队列容量，队列满时评论保持待审核，由补扫任务稍后重新入队
+ * @param batchSize          工作线程一次取出并批量写回的评论数
+ * @param workers            工作线程数
+ * @param sweepInterval      补扫待审核评论的间隔，也是评论保持待审核多久后才会被补扫
+ * @param keywords           敏感词（忽略大小写与空白、标点），为空时不启用关键词过滤
+ * @param patterns           正则规则（对原文匹配），为空时不启用
+ * @param duplicate          相同内容检测
+ * @param duplicateMinLength 归一化后短于该长度的内容不做相同内容检测
+ * @param burst              单用户突发检测
+ */
+@ConfigurationProperties("cmbackend.moderation")
+public record ModerationProperties(
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("200") int batchSize,
+        @DefaultValue("1") int workers,
+        @DefaultValue("1m") Duration sweepInterval,
+        List<String> keywords,
+        List<String> patterns,
+        @DefaultValue Window duplicate,
+        @DefaultValue("10") int duplicateMinLength,
+        @DefaultValue Window burst
+) {
+
+    public ModerationProperties {
+        // 空字符串的正则会匹配任何评论，与空白敏感词一起忽略
+        keywords = keywords == null ? List.of() : keywords.stream().filter(k -> !k.isBlank()).toList();
+        patterns = patterns == null ? List.of() : patterns.stream().filter(p -> !p.isBlank()).toList();
+    }
+
+    /**
+     * 时间窗口内的次数上限，超过上限的评论被标记；threshold 为0时不启用
+     *
+     * @param threshold 窗口内允许的次数
+     * @param window    窗口长度
+     */
+    public record Window(@DefaultValue("0") int threshold, @DefaultValue("1h") Duration window) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.goatyang.cmbackend.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate SQL计数器
+ * 每条SQL准备执行前计数一次（不修改SQL），按线程累计，由 QueryCountFilter 在请求开始时清零、结束时读取
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNTER = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNTER.get()[0]++;
+        return sql;
+    }
+
+    /** 清零当前线程的计数 */
+    static void reset() {
+        COUNTER.get()[0] = 0;
+    }
+
+    /** 读取当前线程的计数并移除线程变量 */
+    static int takeCount() {
+        int count = COUNTER.get()[0];
+        COUNTER.remove();
+        return count;
+    }
+}
@@ -0,0 +1,105 @@
+package com.goatyang.cmbackend.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.goatyang.cmbackend.exception.RateLimitExceededException;
+import com.goatyang.cmbackend.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写接口限流拦截器
+ * 对标注了 {@link RateLimited} 的接口，按路由分别为每个登录用户、每个客户端IP维护令牌桶，
+ * 超限时抛出 {@link RateLimitExceededException}，由全局异常处理器返回429与 Retry-After。
+ * 令牌桶放在按访问过期的 Caffeine 缓存中：闲置超过一个周期的桶已经回满，直接丢弃不影响结果，
+ * 内存占用由 maximumKeys 限定
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final boolean enabled;
+    private final Map<String, RouteLimiter> routes = new HashMap<>();
+
+    public RateLimitInterceptor(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        properties.routes().forEach((name, route) -> routes.put(name, new RouteLimiter(
+                KeyLimiter.of(name, "user", route.user(), properties.maximumKeys(), meterRegistry),
+                KeyLimiter.of(name, "ip", route.ip(), properties.maximumKeys(), meterRegistry))));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RateLimited rateLimited = handlerMethod.getMethodAnnotation(RateLimited.class);
+        RouteLimiter limiter = rateLimited == null ? null : routes.get(rateLimited.value());
+        if (limiter == null) {
+            return true;
+        }
+        long now = System.nanoTime();
+        Principal principal = request.getUserPrincipal();
+        if (limiter.user() != null && principal != null) {
+            limiter.user().acquire(principal.getName(), now);
+        }
+        if (limiter.ip() != null) {
+            // 部署在反向代理后时需配置 server.forward-headers-strategy，使其返回真实客户端IP
+            limiter.ip().acquire(request.getRemoteAddr(), now);
+        }
+        return true;
+    }
+
+    private record RouteLimiter(KeyLimiter user, KeyLimiter ip) {
+    }
+
+    /** 某个路由在某个维度（用户或IP）上的一组令牌桶 */
+    private static final class KeyLimiter {
+
+        private final long capacity;
+        private final long periodNanos;
+        private final Cache<String, TokenBucket> buckets;
+        private final Counter rejected;
+
+        private KeyLimiter(long capacity, long periodNanos, long maximumKeys, Counter rejected) {
+            this.capacity = capacity;
+            this.periodNanos = periodNanos;
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maximumKeys)
+                    .expireAfterAccess(periodNanos, TimeUnit.NANOSECONDS)
+                    .build();
+            this.rejected = rejected;
+        }
+
+        static KeyLimiter of(String route, String dimension, RateLimitProperties.Limit limit,
+                             long maximumKeys, MeterRegistry meterRegistry) {
+            if (limit == null) {
+                return null;
+            }
+            Counter rejected = Counter.builder("cmbackend.rate-limit.rejected")
+                    .description("被限流拒绝的请求数")
+                    .tag("route", route)
+                    .tag("dimension", dimension)
+                    .register(meterRegistry);
+            return new KeyLimiter(limit.capacity(), limit.period().toNanos(), maximumKeys, rejected);
+        }
+
+        void acquire(String key, long now) {
+            TokenBucket bucket = buckets.get(key, k -> new TokenBucket(capacity, periodNanos, now));
+            long waitNanos = bucket.tryAcquire(now);
+            if (waitNanos > 0) {
+                rejected.increment();
+                throw new RateLimitExceededException(TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.goatyang.cmbackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 写接口限流配置（cmbackend.rate-limit.*）
+ *
+ * @param enabled     是否启用限流
+ * @param maximumKeys 每个路由、每个维度最多保留的令牌桶数（用户/IP），超出时淘汰最久未访问的
+ * @param routes      路由名 -&gt; 限流规则，未配置的路由不限流
+ */
+@ConfigurationProperties("cmbackend.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") long maximumKeys,
+        Map<String, Route> routes
+) {
+
+    public RateLimitProperties {
+        routes = routes == null ? Map.of() : Map.copyOf(routes);
+    }
+
+    /**
+     * 单个路由的限流规则，user 按登录用户、ip 按客户端IP计数，两者都满足才放行；任一项可不配置
+     */
+    public record Route(Limit user, Limit ip) {
+    }
+
+    /**
+     * @param capacity 桶容量，即一个周期内允许的请求数（也是允许的最大突发）
+     * @param period   桶从空到满的时间
+     */
+    public record Limit(long capacity, Duration period) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.goatyang.cmbackend.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记需要限流的接口方法
+ * value 为限流路由名，对应配置 cmbackend.rate-limit.routes.&lt;value&gt;；
+ * 多个接口使用同一路由名时共享同一组令牌桶
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    String value();
+}
@@ -0,0 +1,65 @@
+package com.goatyang.cmbackend.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 读写分离路由数据源
+ * 只读事务（@Transactional(readOnly = true)，以及 Spring Data 仓库默认的只读查询）走从库，
+ * 其余连接走主库；当前客户端刚写过主库时（读己之写窗口内）只读事务也走主库。
+ * 需包在 LazyConnectionDataSourceProxy 中使用：事务开始时只拿到代理连接，
+ * 执行第一条语句时事务的只读标记已设置好，才真正按标记选择数据源。
+ * 共享缓存的加载器在 onPrimary 中执行，缓存的数据对所有客户端可见，不能来自有复制延迟的从库
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                                      ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * 在主库上执行：期间取得的连接（包括只读事务的连接）都走主库。
+     * 只在事务取得连接之前生效，调用方应在只读事务执行第一条语句之前加载缓存；
+     * 事务中已取得的从库连接不会切换，未启用读写分离时没有任何作用
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWritesTracker.recordWrite();
+            }
+            return Route.PRIMARY;
+        }
+        if (FORCE_PRIMARY.get() != null) {
+            return Route.PRIMARY;
+        }
+        return readYourWritesTracker.isSticky() ? Route.PRIMARY : Route.REPLICA;
+    }
+}
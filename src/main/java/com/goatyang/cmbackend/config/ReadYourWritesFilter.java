@@ -0,0 +1,35 @@
+package com.goatyang.cmbackend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * 把当前登录用户绑定到 ReadYourWritesTracker
+ * 注册在 Spring Security 过滤器链之后，此时已能取到登录用户
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadYourWritesTracker tracker;
+
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Principal principal = request.getUserPrincipal();
+        tracker.bind(principal == null ? null : principal.getName());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            tracker.clear();
+        }
+    }
+}
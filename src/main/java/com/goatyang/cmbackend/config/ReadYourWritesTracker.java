@@ -0,0 +1,53 @@
+package com.goatyang.cmbackend.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * 读己之写跟踪
+ * 请求线程上绑定当前客户端标识（登录用户），该客户端开启写事务后的一段时间内，
+ * 其只读事务仍路由到主库，避免因主从复制延迟读不到自己刚写入的数据。
+ * 写入记录放在按写入时间过期的 Caffeine 缓存中，内存有界
+ */
+public class ReadYourWritesTracker {
+
+    private static final ThreadLocal<String> CLIENT = new ThreadLocal<>();
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(Duration window, long maximumClients) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    /** 绑定当前线程的客户端标识，null表示匿名 */
+    public void bind(String client) {
+        if (client == null) {
+            CLIENT.remove();
+        } else {
+            CLIENT.set(client);
+        }
+    }
+
+    public void clear() {
+        CLIENT.remove();
+    }
+
+    /** 当前客户端开启了写事务 */
+    void recordWrite() {
+        String client = CLIENT.get();
+        if (client != null) {
+            recentWriters.put(client, Boolean.TRUE);
+        }
+    }
+
+    /** 当前客户端是否处于读己之写窗口内 */
+    boolean isSticky() {
+        String client = CLIENT.get();
+        return client != null && recentWriters.getIfPresent(client) != null;
+    }
+}
@@ -1,13 +1,18 @@
 package com.goatyang.cmbackend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
 import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -20,11 +25,15 @@ public class SecurityConfig {
 
     private final CustomOAuth2SuccessHandler successHandler;
     private final CustomOAuth2FailureHandler failureHandler;
+    private final List<IpAddressMatcher> scrapeNetworks;
 
     public SecurityConfig(CustomOAuth2SuccessHandler successHandler,
-                          CustomOAuth2FailureHandler failureHandler) {
+                          CustomOAuth2FailureHandler failureHandler,
+                          @Value("${cmbackend.metrics.scrape-networks:127.0.0.1/32,::1/128}")
+                          List<String> scrapeNetworks) {
         this.successHandler = successHandler;
         this.failureHandler = failureHandler;
+        this.scrapeNetworks = scrapeNetworks.stream().map(String::trim).map(IpAddressMatcher::new).toList();
     }
 
     @Bean
@@ -43,6 +52,11 @@ public class SecurityConfig {
                         .requestMatchers("/admin/**").permitAll()
                         .requestMatchers("/api/auth/me").permitAll()
                         .requestMatchers("/api/comments/article/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/comments/counts").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/comments/*/replies").permitAll()
+                        .requestMatchers("/actuator/health/**").permitAll()
+                        // 指标只允许来自抓取网段的请求，不对公网开放
+                        .requestMatchers("/actuator/prometheus").access(fromScrapeNetworks())
                         .anyRequest().authenticated()
                 )
 
@@ -58,6 +72,12 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /** 请求的来源地址（直连地址，不信任转发头）位于抓取网段内时放行 */
+    private AuthorizationManager<RequestAuthorizationContext> fromScrapeNetworks() {
+        return (authentication, context) -> new AuthorizationDecision(
+                scrapeNetworks.stream().anyMatch(network -> network.matches(context.getRequest())));
+    }
+
     @Bean
     public AuthorizationRequestRepository<OAuth2AuthorizationRequest> authorizationRequestRepository() {
         return new CustomAuthorizationRequestRepository();
@@ -91,7 +111,7 @@ public class SecurityConfig {
         // 暴露给前端的响应头
         configuration.setExposedHeaders(List.of(
                 "Authorization", "Content-Length", "Access-Control-Allow-Origin",
-                "Access-Control-Allow-Credentials"
+                "Access-Control-Allow-Credentials", "ETag", "Last-Modified", "Retry-After"
         ));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
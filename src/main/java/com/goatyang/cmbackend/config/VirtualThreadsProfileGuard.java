@@ -0,0 +1,24 @@
+package com.goatyang.cmbackend.config;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * virtual-threads 配置的运行环境检查
+ * Spring Boot 在 JRE 21 以下会静默忽略 spring.threads.virtual.enabled，
+ * 此时该配置只剩放宽的连接数与后台任务并发限制，仍以平台线程运行；直接启动失败，避免误以为已启用虚拟线程
+ */
+@Component
+@Profile("virtual-threads")
+public class VirtualThreadsProfileGuard {
+
+    private static final int MIN_JAVA_VERSION = 21;
+
+    public VirtualThreadsProfileGuard() {
+        int version = Runtime.version().feature();
+        if (version < MIN_JAVA_VERSION) {
+            throw new IllegalStateException("virtual-threads 配置需要 Java " + MIN_JAVA_VERSION
+                    + "+，当前运行在 Java " + version);
+        }
+    }
+}
@@ -1,17 +1,33 @@
 package com.goatyang.cmbackend.controller;
 
 
+import com.goatyang.cmbackend.dto.CommentClone;
+import com.goatyang.cmbackend.dto.CommentImportReport;
+import com.goatyang.cmbackend.dto.CommentSearchCriteria;
+import com.goatyang.cmbackend.dto.PageResult;
 import com.goatyang.cmbackend.model.Comment;
-import com.goatyang.cmbackend.model.User;
+import com.goatyang.cmbackend.service.ArticleCommentCache;
+import com.goatyang.cmbackend.service.CommentExportService;
+import com.goatyang.cmbackend.service.CommentExportService.ExportFormat;
+import com.goatyang.cmbackend.service.CommentImportService;
+import com.goatyang.cmbackend.service.CommentSearchService;
 import com.goatyang.cmbackend.service.CommentService;
+import com.goatyang.cmbackend.service.CommentService.SearchSort;
+import com.goatyang.cmbackend.service.ContentFingerprintService;
 import com.goatyang.cmbackend.service.UserService;
 import com.goatyang.cmbackend.util.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/admin/api/comments")
@@ -19,44 +35,130 @@ public class AdminCommentController {
 
     private final CommentService commentService;
     private final UserService userService;
+    private final ArticleCommentCache articleCommentCache;
+    private final CommentExportService commentExportService;
+    private final CommentImportService commentImportService;
+    private final CommentSearchService commentSearchService;
+    private final ContentFingerprintService contentFingerprintService;
 
     @Autowired
-    public AdminCommentController(CommentService commentService, UserService userService) {
+    public AdminCommentController(CommentService commentService, UserService userService,
+                                  ArticleCommentCache articleCommentCache,
+                                  CommentExportService commentExportService,
+                                  CommentImportService commentImportService,
+                                  CommentSearchService commentSearchService,
+                                  ContentFingerprintService contentFingerprintService) {
         this.commentService = commentService;
         this.userService = userService;
+        this.articleCommentCache = articleCommentCache;
+        this.commentExportService = commentExportService;
+        this.commentImportService = commentImportService;
+        this.commentSearchService = commentSearchService;
+        this.contentFingerprintService = contentFingerprintService;
     }
 
-    /** 获取所有评论 */
+    /**
+     * 搜索评论：各筛选条件可任意组合，按创建时间或点赞数倒序分页
+     * 默认只返回 hasMore，不统计总数；exactCount=true 时额外返回 total
+     */
     @GetMapping
-    public ApiResponse<List<Comment>> getAllComments() {
-        return ApiResponse.success(commentService.getAllComments());
+    public ApiResponse<PageResult<Comment>> searchComments(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String articlePath,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(required = false) Long minLikes,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean exactCount
+    ) {
+        CommentSearchCriteria criteria = new CommentSearchCriteria(
+                userId, username, articlePath, startTime, endTime, minLikes);
+        return ApiResponse.success(commentService.searchComments(
+                criteria, SearchSort.parse(sort), page, size, exactCount));
     }
 
-    /** 根据用户ID获取评论 */
-    @GetMapping("/user/{userId}")
-    public ApiResponse<List<Comment>> getCommentsByUserId(@PathVariable Long userId) {
-        return ApiResponse.success(commentService.getCommentsByUserId(userId));
+    /** 分页列出被审核流水线标记的评论（含标记原因），新评论在前 */
+    @GetMapping("/flagged")
+    public ApiResponse<PageResult<Comment>> getFlaggedComments(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ApiResponse.success(commentService.getFlaggedComments(page, size));
     }
 
-    /** 根据用户名获取评论 */
-    @GetMapping("/username/{username}")
-    public ApiResponse<List<Comment>> getCommentsByUserId(@PathVariable String username) {
-        return ApiResponse.success(commentService.getCommentsByUsername(username));
+    /** 审核通过被标记的评论（需要删除时调用删除接口） */
+    @PostMapping("/{commentId}/approve")
+    public ApiResponse<Void> approveComment(@PathVariable Long commentId) {
+        commentService.approveFlaggedComment(commentId);
+        return ApiResponse.success(null);
     }
 
-    /** 根据文章路径获取评论 */
-    @GetMapping("/article/{articlePath}")
-    public ApiResponse<List<Comment>> getCommentsByArticlePath(@PathVariable String articlePath) {
-        return ApiResponse.success(commentService.getCommentsByArticlePath(articlePath));
+    /**
+     * 查找与某评论相同或近似的评论（该评论创建前后 hours 小时内，默认取配置的时间窗口），
+     * 用于确认同一内容是否被批量发到多篇文章
+     */
+    @GetMapping("/{commentId}/clones")
+    public ApiResponse<List<CommentClone>> getCommentClones(@PathVariable Long commentId,
+                                                            @RequestParam(required = false) Integer hours) {
+        Duration window = hours != null ? Duration.ofHours(hours) : null;
+        return ApiResponse.success(contentFingerprintService.findClones(commentId, window));
     }
 
-    /** 根据时间范围获取评论 */
-    @GetMapping("/time")
-    public ApiResponse<List<Comment>> getCommentsByCreatedAtBetween(
-            @RequestParam LocalDateTime startTime,
-            @RequestParam LocalDateTime endTime
+    /**
+     * 按评论正文全文搜索（中文按二元组匹配），新评论在前分页，返回精确总数
+     */
+    @GetMapping("/search")
+    public ApiResponse<PageResult<Comment>> searchCommentText(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
     ) {
-        return ApiResponse.success(commentService.getCommentsByCreatedAtBetween(startTime, endTime));
+        return ApiResponse.success(commentSearchService.search(q, page, size));
+    }
+
+    /** 在后台从数据库重建全文搜索索引 */
+    @PostMapping("/search/rebuild")
+    public ApiResponse<Map<String, Object>> rebuildSearchIndex() {
+        commentSearchService.rebuildAsync();
+        return ApiResponse.success(commentSearchService.stats());
+    }
+
+    /** 查看全文搜索索引统计（文档数、词项数、是否正在重建） */
+    @GetMapping("/search/stats")
+    public ApiResponse<Map<String, Object>> getSearchIndexStats() {
+        return ApiResponse.success(commentSearchService.stats());
+    }
+
+    /**
+     * 流式导出所有评论（format=ndjson|csv）
+     * 边读边写到响应输出流，内存占用与评论表大小无关
+     */
+    @GetMapping("/export")
+    public void exportComments(@RequestParam(defaultValue = "ndjson") String format,
+                               HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"comments." + exportFormat.getExtension() + "\"");
+        commentExportService.exportAll(exportFormat, response.getOutputStream());
+    }
+
+    /**
+     * 批量导入历史评论与点赞（请求体为NDJSON，每行一条导入记录）
+     * 边读边写，按块提交；返回导入数量与每秒写入行数
+     */
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "application/json", "text/plain"})
+    public ApiResponse<CommentImportReport> importComments(InputStream body) throws IOException {
+        return ApiResponse.success(commentImportService.importNdjson(body));
+    }
+
+    /** 查看文章评论缓存统计（命中/未命中/淘汰） */
+    @GetMapping("/cache/stats")
+    public ApiResponse<Map<String, Object>> getCommentCacheStats() {
+        return ApiResponse.success(articleCommentCache.stats());
     }
 
     /** 删除评论 */
@@ -0,0 +1,88 @@
+package com.goatyang.cmbackend.controller;
+
+import com.goatyang.cmbackend.dto.UserStatView;
+import com.goatyang.cmbackend.model.ArticleDailyStat;
+import com.goatyang.cmbackend.model.DailyStat;
+import com.goatyang.cmbackend.service.CommentStatsService;
+import com.goatyang.cmbackend.util.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 管理端统计接口，读取预先汇总的统计表
+ * 日期范围默认为最近30天（含今天）
+ */
+@RestController
+@RequestMapping("/admin/api/stats")
+public class AdminStatsController {
+
+    private static final int DEFAULT_DAYS = 30;
+
+    private final CommentStatsService commentStatsService;
+
+    @Autowired
+    public AdminStatsController(CommentStatsService commentStatsService) {
+        this.commentStatsService = commentStatsService;
+    }
+
+    /** 全站每日评论数、点赞数与活跃用户数 */
+    @GetMapping("/daily")
+    public ApiResponse<List<DailyStat>> getDailyStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        return ApiResponse.success(commentStatsService.getDailyStats(start, end));
+    }
+
+    /** 某篇文章每天的评论数 */
+    @GetMapping("/articles/daily")
+    public ApiResponse<List<ArticleDailyStat>> getArticleDailyStats(
+            @RequestParam String articlePath,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        return ApiResponse.success(commentStatsService.getArticleDailyStats(articlePath, start, end));
+    }
+
+    /** 某天（默认今天）评论最多的文章 */
+    @GetMapping("/articles/top")
+    public ApiResponse<List<ArticleDailyStat>> getTopArticles(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ApiResponse.success(commentStatsService.getTopArticles(date != null ? date : LocalDate.now(), limit));
+    }
+
+    /** 用户排行：sort=comments 评论最多，sort=likes 获赞最多 */
+    @GetMapping("/users/top")
+    public ApiResponse<List<UserStatView>> getTopUsers(
+            @RequestParam(defaultValue = "comments") String sort,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return switch (sort) {
+            case "comments" -> ApiResponse.success(commentStatsService.getTopCommenters(limit));
+            case "likes" -> ApiResponse.success(commentStatsService.getTopLikedUsers(limit));
+            default -> throw new IllegalArgumentException("不支持的排序字段: " + sort);
+        };
+    }
+
+    /** 单个用户的评论数、获赞数与最近活跃日期 */
+    @GetMapping("/users/{userId}")
+    public ApiResponse<UserStatView> getUserStats(@PathVariable Long userId) {
+        return ApiResponse.success(commentStatsService.getUserStats(userId));
+    }
+
+    /** 在后台从评论表与点赞表重新计算统计（如批量导入历史评论后） */
+    @PostMapping("/reconcile")
+    public ApiResponse<Boolean> reconcile() {
+        return ApiResponse.success(commentStatsService.reconcileAsync());
+    }
+}
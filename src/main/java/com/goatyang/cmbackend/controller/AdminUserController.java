@@ -1,39 +1,40 @@
 package com.goatyang.cmbackend.controller;
 
 
-import com.goatyang.cmbackend.model.Comment;
 import com.goatyang.cmbackend.model.User;
-import com.goatyang.cmbackend.service.CommentLikeService;
-import com.goatyang.cmbackend.service.CommentService;
+import com.goatyang.cmbackend.service.UserCascadeDeleteService;
+import com.goatyang.cmbackend.service.UserDeleteJobService;
+import com.goatyang.cmbackend.service.UserDeleteJobService.UserDeleteJob;
 import com.goatyang.cmbackend.service.UserService;
 import com.goatyang.cmbackend.util.ApiResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+@Slf4j
 @RestController
 @RequestMapping("/admin/api/users")
 public class AdminUserController {
 
     private final UserService userService;
-    private final CommentService commentService;
-    private final CommentLikeService commentLikeService;
+    private final UserCascadeDeleteService userCascadeDeleteService;
+    private final UserDeleteJobService userDeleteJobService;
 
     @Autowired
-    public AdminUserController(UserService userService, CommentService commentService, CommentLikeService commentLikeService) {
+    public AdminUserController(UserService userService,
+                               UserCascadeDeleteService userCascadeDeleteService,
+                               UserDeleteJobService userDeleteJobService) {
         this.userService = userService;
-        this.commentService = commentService;
-        this.commentLikeService = commentLikeService;
+        this.userCascadeDeleteService = userCascadeDeleteService;
+        this.userDeleteJobService = userDeleteJobService;
     }
 
     /** 获取所有用户 */
     @GetMapping
     public ApiResponse<List<User>> getAllUsers() {
-        System.out.println("=====================管理系统开始获取所有用户");
+        log.debug("管理端获取所有用户");
         return ApiResponse.success(userService.getAllUsers());
     }
 
@@ -64,39 +65,28 @@ public class AdminUserController {
     /** 更新用户评论权限 */
     @PutMapping("/{userId}")
     public ApiResponse<User> updateUser(@PathVariable Long userId, @RequestBody User userDetails) {
-        System.out.println("=========================更新用户评论权限："+userId);
-        System.out.println(userDetails);
+        log.info("更新用户评论权限: userId={}, comPermissions={}", userId, userDetails.getComPermissions());
         return ApiResponse.success(userService.updateUser(userId, userDetails));
     }
 
-    /** 删除用户（级联删除评论及点赞） */
+    /**
+     * 删除用户（级联删除评论及点赞）
+     * async=true 时提交后台任务并立即返回任务信息，通过 /delete-jobs/{jobId} 查询结果
+     */
     @DeleteMapping("/{userId}")
-    public ApiResponse<Map<String, Object>> deleteUser(@PathVariable Long userId) {
-        // 记录返回结果
-        Map<String, Object> result = new HashMap<>();
-
-        // 删除用户的点赞
-        Map<String, Object> likesDeleted = commentLikeService.deleteAllLikesByUserId(userId);
-        result.put("likesDeleted", likesDeleted);
-
-        // 删除用户的评论以及相关点赞
-        List<Comment> comments = commentService.getCommentsByUserId(userId);
-        List<Map<String, Object>> commentLikesDeleted = new ArrayList<>();
-        for (Comment comment : comments) {
-            Map<String, Object> commentLikeDeleteResult =
-                    commentLikeService.deleteAllLikesByCommentId(comment.getCommentId());
-            commentLikesDeleted.add(commentLikeDeleteResult);
+    public ApiResponse<?> deleteUser(@PathVariable Long userId,
+                                     @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            return ApiResponse.success(userDeleteJobService.submit(userId));
         }
-        result.put("commentLikesDeleted", commentLikesDeleted);
-
-        // 删除用户的评论
-        commentService.deleteAllCommentsByUserId(userId);
-        result.put("commentsDeleted", comments.size());
-
-        // 删除用户本身
-        userService.deleteUser(userId);
-        result.put("userDeleted", userId);
+        return ApiResponse.success(userCascadeDeleteService.deleteUserCascade(userId));
+    }
 
-        return ApiResponse.success(result);
+    /** 查询用户删除任务状态 */
+    @GetMapping("/delete-jobs/{jobId}")
+    public ApiResponse<UserDeleteJob> getDeleteJob(@PathVariable String jobId) {
+        return userDeleteJobService.getJob(jobId)
+                .map(ApiResponse::success)
+                .orElseThrow(() -> new IllegalArgumentException("删除任务不存在"));
     }
 }
@@ -1,41 +1,161 @@
 package com.goatyang.cmbackend.controller;
 
-import com.goatyang.cmbackend.model.Comment;
+import com.goatyang.cmbackend.config.RateLimited;
+import com.goatyang.cmbackend.dto.CommentNode;
+import com.goatyang.cmbackend.dto.CommentView;
+import com.goatyang.cmbackend.dto.CursorPage;
+import com.goatyang.cmbackend.service.ArticleVersionRegistry;
+import com.goatyang.cmbackend.service.ArticleVersionRegistry.ArticleVersion;
 import com.goatyang.cmbackend.service.CommentService;
+import com.goatyang.cmbackend.service.CommentStreamHub;
+import com.goatyang.cmbackend.service.HotCommentRanking;
 import com.goatyang.cmbackend.util.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/comments")
 public class CommentController {
 
+    /** 批量查询评论数时一次允许的最大文章数 */
+    private static final int MAX_COUNT_PATHS = 100;
+
     private final CommentService commentService;
+    private final ArticleVersionRegistry articleVersionRegistry;
+    private final HotCommentRanking hotCommentRanking;
+    private final CommentStreamHub commentStreamHub;
+    private final CacheControl countsCacheControl;
 
     @Autowired
-    public CommentController(CommentService commentService) {
+    public CommentController(CommentService commentService, ArticleVersionRegistry articleVersionRegistry,
+                             HotCommentRanking hotCommentRanking, CommentStreamHub commentStreamHub,
+                             @Value("${cmbackend.comment-counts.max-age:30s}") Duration countsMaxAge) {
         this.commentService = commentService;
+        this.articleVersionRegistry = articleVersionRegistry;
+        this.hotCommentRanking = hotCommentRanking;
+        this.commentStreamHub = commentStreamHub;
+        this.countsCacheControl = CacheControl.maxAge(countsMaxAge).cachePublic();
     }
 
-    /** 创建评论 */
+    /** 创建评论，传 parentId 时为回复该评论 */
     @PostMapping
-    public ApiResponse<Comment> createComment(
+    @RateLimited("comment-create")
+    public ApiResponse<CommentView> createComment(
             @RequestParam Long userId,
             @RequestParam String articlePath,
-            @RequestParam String content
+            @RequestParam String content,
+            @RequestParam(required = false) Long parentId
     ) {
-        System.out.println("=================开始根据文章路径、用户、内容创建评论："+userId+"<UNK>"+articlePath+"<UNK>"+content);
-        return ApiResponse.success(commentService.createComment(userId, articlePath, content));
+        log.debug("创建评论: userId={}, articlePath={}, parentId={}, length={}",
+                userId, articlePath, parentId, content.length());
+        return ApiResponse.success(commentService.createComment(userId, articlePath, content, parentId));
     }
 
-    /** 根据文章路径获取评论 */
+    /**
+     * 根据文章路径分页获取评论（平铺列表，只含楼层，回复见评论树接口），cursor为上一页返回的nextCursor
+     * 支持条件请求：If-None-Match / If-Modified-Since 命中时直接返回304，不查询评论列表
+     */
     @GetMapping("/article/{articlePath}")
-    public ApiResponse<List<Comment>> getCommentsByArticlePath(@PathVariable String articlePath) {
-        System.out.println("================开始根据文章路径获取评论:  "+articlePath);
+    public ApiResponse<List<CommentView>> getCommentsByArticlePath(
+            @PathVariable String articlePath,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CommentService.DEFAULT_PAGE_SIZE) int limit,
+            WebRequest webRequest
+    ) {
+        log.debug("获取文章评论: articlePath={}, cursor={}, limit={}", articlePath, cursor, limit);
+
+        ArticleVersion version = articleVersionRegistry.getVersion(articlePath);
+        if (webRequest.checkNotModified(version.etag(cursor + ":" + limit), version.lastModified())) {
+            return null;
+        }
+
+        CursorPage<CommentView> page = commentService.getCommentPageByArticlePath(articlePath, cursor, limit);
+        return ApiResponse.success(page.items(), page.nextCursor());
+    }
 
-        return ApiResponse.success(commentService.getCommentsByArticlePath(articlePath));
+    /**
+     * 按楼层分页获取文章评论树，cursor为上一页返回的nextCursor
+     * 每个楼层附带最早的 replies 条回复，楼层的 replyCount 多于已附带的回复时通过回复接口继续加载
+     */
+    @GetMapping("/article/{articlePath}/threads")
+    public ApiResponse<List<CommentNode>> getThreadsByArticlePath(
+            @PathVariable String articlePath,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CommentService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(defaultValue = "" + CommentService.DEFAULT_REPLIES_PER_ROOT) int replies
+    ) {
+        CursorPage<CommentNode> page = commentService.getThreadPageByArticlePath(articlePath, cursor, limit, replies);
+        return ApiResponse.success(page.items(), page.nextCursor());
+    }
+
+    /** 分页获取某条评论下的全部回复（按时间正序） */
+    @GetMapping("/{commentId}/replies")
+    public ApiResponse<List<CommentNode>> getReplies(
+            @PathVariable Long commentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CommentService.DEFAULT_PAGE_SIZE) int limit
+    ) {
+        CursorPage<CommentNode> page = commentService.getReplies(commentId, cursor, limit);
+        return ApiResponse.success(page.items(), page.nextCursor());
+    }
+
+    /** 获取文章热门评论前k条（内存榜单，不查询数据库） */
+    @GetMapping("/article/{articlePath}/top")
+    public ApiResponse<List<CommentView>> getTopCommentsByArticlePath(
+            @PathVariable String articlePath,
+            @RequestParam(defaultValue = "" + HotCommentRanking.DEFAULT_K) int k
+    ) {
+        return ApiResponse.success(hotCommentRanking.top(articlePath, k));
+    }
+
+    /**
+     * 订阅文章评论的实时变化（SSE），替代轮询评论列表
+     * 事件：comment（新评论）、deleted（被删除或被审核隐藏的评论ID）、likes（点赞数变化）、resync（需重新拉取列表）；
+     * 响应由 CommentStreamHub 以非阻塞方式直接写出，订阅数超限时返回429
+     */
+    @GetMapping(value = "/article/{articlePath}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void streamComments(@PathVariable String articlePath, HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        commentStreamHub.subscribe(articlePath, request, response);
+    }
+
+    /**
+     * 批量获取多篇文章的评论数，供文章列表页一次请求渲染
+     * 响应带 Cache-Control 与弱ETag，评论数未变化时返回304
+     */
+    @GetMapping("/counts")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getCommentCounts(
+            @RequestParam List<String> articlePaths,
+            WebRequest webRequest
+    ) {
+        Set<String> paths = new LinkedHashSet<>(articlePaths);
+        if (paths.size() > MAX_COUNT_PATHS) {
+            throw new IllegalArgumentException("一次最多查询 " + MAX_COUNT_PATHS + " 篇文章的评论数");
+        }
+        Map<String, Long> counts = articleVersionRegistry.getCommentCounts(paths);
+        String etag = "W/\"" + Integer.toHexString(counts.toString().hashCode()) + '"';
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(countsCacheControl)
+                .eTag(etag)
+                .body(ApiResponse.success(counts));
     }
 }
@@ -1,14 +1,18 @@
 package com.goatyang.cmbackend.controller;
 
+import com.goatyang.cmbackend.config.RateLimited;
 import com.goatyang.cmbackend.model.CommentLike;
 import com.goatyang.cmbackend.service.CommentLikeService;
 import com.goatyang.cmbackend.util.ApiResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/comment-likes")
 public class CommentLikeController {
@@ -22,16 +26,26 @@ public class CommentLikeController {
 
     /** 点赞评论 */
     @PostMapping
+    @RateLimited("comment-like")
     public ApiResponse<Map<String, Object>> likeComment(@RequestParam Long userId,
                                                         @RequestParam Long commentId) {
-        System.out.println("==================开始创建点赞："+userId+"<UNK>"+commentId);
+        log.debug("点赞评论: userId={}, commentId={}", userId, commentId);
         return ApiResponse.success(commentLikeService.likeComment(userId, commentId));
     }
 
+    /** 批量查询当前用户点赞过的评论ID（按文章路径或评论ID列表） */
+    @GetMapping("/liked")
+    public ApiResponse<Set<Long>> getLikedCommentIds(@RequestParam Long userId,
+                                                     @RequestParam(required = false) String articlePath,
+                                                     @RequestParam(required = false) List<Long> commentIds) {
+        return ApiResponse.success(commentLikeService.getLikedCommentIds(userId, articlePath, commentIds));
+    }
+
     /** 取消点赞 */
-//    @PatchMapping("/cancel")
-//    public ApiResponse<Map<String, Object>> unlikeComment(@RequestParam Long userId,
-//                                                          @RequestParam Long commentId) {
-//        return ApiResponse.success(commentLikeService.unlikeComment(userId, commentId));
-//    }
+    @PatchMapping("/cancel")
+    @RateLimited("comment-like")
+    public ApiResponse<Map<String, Object>> unlikeComment(@RequestParam Long userId,
+                                                          @RequestParam Long commentId) {
+        return ApiResponse.success(commentLikeService.unlikeComment(userId, commentId));
+    }
 }
@@ -0,0 +1,9 @@
+package com.goatyang.cmbackend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 按文章分组的评论汇总：文章路径、评论数与最新评论时间
+ */
+public record ArticleCommentGroup(String articlePath, Long commentCount, LocalDateTime lastCommentAt) {
+}
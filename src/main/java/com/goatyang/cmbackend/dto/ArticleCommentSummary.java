@@ -0,0 +1,9 @@
+package com.goatyang.cmbackend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 单篇文章的评论汇总：评论数与最新评论时间
+ */
+public record ArticleCommentSummary(Long commentCount, LocalDateTime lastCommentAt) {
+}
@@ -0,0 +1,13 @@
+package com.goatyang.cmbackend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 与指定评论相同或近似的评论
+ *
+ * @param identical 归一化正文完全相同
+ * @param distance  与指定评论 simhash 的汉明距离，越小越相近
+ */
+public record CommentClone(Long commentId, Long userId, String username, String articlePath, String content,
+                           LocalDateTime createdAt, boolean identical, int distance) {
+}
@@ -0,0 +1,33 @@
+package com.goatyang.cmbackend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 评论分页游标（keyset），按 (createdAt, commentId) 倒序定位
+ * 对外以不透明的Base64字符串传递，前端原样回传即可
+ */
+public record CommentCursor(LocalDateTime createdAt, Long commentId) {
+
+    private static final char SEPARATOR = '|';
+
+    /** 编码为不透明游标字符串 */
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + commentId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** 解析游标字符串，格式不合法时抛出IllegalArgumentException */
+    public static CommentCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int idx = raw.lastIndexOf(SEPARATOR);
+            return new CommentCursor(LocalDateTime.parse(raw.substring(0, idx)),
+                    Long.parseLong(raw.substring(idx + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.goatyang.cmbackend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 评论导出行
+ * 由JPQL构造表达式逐行生成，不进入持久化上下文
+ */
+public record CommentExportRow(Long commentId,
+                               String articlePath,
+                               Long userId,
+                               String username,
+                               String content,
+                               Long likeCount,
+                               LocalDateTime createdAt) {
+
+    /** 返回替换点赞数后的副本 */
+    public CommentExportRow withLikeCount(long likeCount) {
+        return new CommentExportRow(commentId, articlePath, userId, username, content, likeCount, createdAt);
+    }
+}
@@ -0,0 +1,24 @@
+package com.goatyang.cmbackend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 评论导入记录（NDJSON的一行）
+ * type=comment：一条评论，ref 为旧平台中的评论标识，回复用 parentRef 指向文件中更早出现的评论；
+ * type=like：一次点赞，commentRef 指向文件中更早出现的评论。
+ * 作者/点赞者按 githubId 匹配本地用户，不存在时用 username、avatarUrl 创建
+ */
+public record CommentImportRecord(String type,
+                                  String ref,
+                                  String parentRef,
+                                  String commentRef,
+                                  Long githubId,
+                                  String username,
+                                  String avatarUrl,
+                                  String articlePath,
+                                  String content,
+                                  LocalDateTime createdAt) {
+
+    public static final String TYPE_COMMENT = "comment";
+    public static final String TYPE_LIKE = "like";
+}
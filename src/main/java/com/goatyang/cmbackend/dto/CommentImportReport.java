@@ -0,0 +1,13 @@
+package com.goatyang.cmbackend.dto;
+
+/**
+ * 评论导入结果
+ *
+ * @param comments      导入的评论数
+ * @param likes         导入的点赞数（重复点赞只计一次）
+ * @param usersCreated  新建的用户数
+ * @param millis        耗时（毫秒）
+ * @param rowsPerSecond 每秒写入的评论与点赞行数
+ */
+public record CommentImportReport(long comments, long likes, long usersCreated, long millis, long rowsPerSecond) {
+}
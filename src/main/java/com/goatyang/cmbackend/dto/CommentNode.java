@@ -0,0 +1,31 @@
+package com.goatyang.cmbackend.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 评论树节点
+ * 查询时由JPQL构造表达式生成（replies为空列表），组装树时把子节点加入父节点的 replies
+ *
+ * @param parentId   直接回复的评论ID，楼层为null
+ * @param rootId     所属楼层ID，楼层为null
+ * @param replyCount 后代回复总数，可能多于 replies 中已加载的数量
+ */
+public record CommentNode(CommentView comment,
+                          Long parentId,
+                          Long rootId,
+                          long replyCount,
+                          List<CommentNode> replies) {
+
+    public CommentNode(Long commentId, String content, Long likeCount, LocalDateTime createdAt,
+                       String username, String avatarUrl, Long parentId, Long rootId, Long replyCount) {
+        this(new CommentView(commentId, content, likeCount, createdAt, username, avatarUrl),
+                parentId, rootId, replyCount == null ? 0 : replyCount, new ArrayList<>());
+    }
+
+    /** 返回替换评论视图后的副本（共享 replies 列表） */
+    public CommentNode withComment(CommentView comment) {
+        return new CommentNode(comment, parentId, rootId, replyCount, replies);
+    }
+}
@@ -0,0 +1,7 @@
+package com.goatyang.cmbackend.dto;
+
+/**
+ * 评论引用：只包含评论ID、所属文章路径与楼层物化路径
+ */
+public record CommentRef(Long commentId, String articlePath, String path) {
+}
@@ -0,0 +1,9 @@
+package com.goatyang.cmbackend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 评论排名所需的最少字段：评论ID、点赞数、发布时间
+ */
+public record CommentScore(Long commentId, Long likeCount, LocalDateTime createdAt) {
+}
@@ -0,0 +1,17 @@
+package com.goatyang.cmbackend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 管理端评论搜索条件，字段为null表示不过滤
+ *
+ * @param userId            用户ID
+ * @param username          用户名（精确匹配）
+ * @param articlePathPrefix 文章路径前缀
+ * @param startTime         创建时间下限（含）
+ * @param endTime           创建时间上限（含）
+ * @param minLikes          最少点赞数
+ */
+public record CommentSearchCriteria(Long userId, String username, String articlePathPrefix,
+                                    LocalDateTime startTime, LocalDateTime endTime, Long minLikes) {
+}
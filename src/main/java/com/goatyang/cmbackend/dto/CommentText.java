@@ -0,0 +1,7 @@
+package com.goatyang.cmbackend.dto;
+
+/**
+ * 评论ID与正文，用于构建全文检索索引
+ */
+public record CommentText(Long commentId, String content) {
+}
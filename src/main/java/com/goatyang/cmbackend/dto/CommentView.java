@@ -0,0 +1,20 @@
+package com.goatyang.cmbackend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 公开评论列表的轻量视图
+ * 只包含前端展示所需字段，由JPQL构造表达式直接查询对应列，不加载Comment/User实体
+ */
+public record CommentView(Long commentId,
+                          String content,
+                          Long likeCount,
+                          LocalDateTime createdAt,
+                          String username,
+                          String avatarUrl) {
+
+    /** 返回替换点赞数后的副本 */
+    public CommentView withLikeCount(long likeCount) {
+        return new CommentView(commentId, content, likeCount, createdAt, username, avatarUrl);
+    }
+}
@@ -0,0 +1,12 @@
+package com.goatyang.cmbackend.dto;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ *
+ * @param items      当前页数据
+ * @param nextCursor 下一页游标，没有更多数据时为null
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+}
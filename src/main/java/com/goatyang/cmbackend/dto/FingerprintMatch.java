@@ -0,0 +1,7 @@
+package com.goatyang.cmbackend.dto;
+
+/**
+ * 按指纹索引查到的候选评论，由调用方按汉明距离过滤
+ */
+public record FingerprintMatch(Long commentId, Long contentHash, Long simhash) {
+}
@@ -0,0 +1,9 @@
+package com.goatyang.cmbackend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待审核评论，由评论创建事件或补扫查询生成，交给审核流水线处理
+ */
+public record ModerationTask(Long commentId, Long userId, String articlePath, String content, LocalDateTime createdAt) {
+}
@@ -0,0 +1,18 @@
+package com.goatyang.cmbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * 分页结果
+ *
+ * @param items   当前页数据
+ * @param page    页码（从0开始）
+ * @param size    每页条数
+ * @param hasMore 是否还有下一页
+ * @param total   总条数，仅在要求精确计数时返回
+ */
+public record PageResult<T>(List<T> items, int page, int size, boolean hasMore,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) Long total) {
+}
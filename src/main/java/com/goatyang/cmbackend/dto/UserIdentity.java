@@ -0,0 +1,19 @@
+package com.goatyang.cmbackend.dto;
+
+import com.goatyang.cmbackend.model.User;
+
+/**
+ * 写请求所需的用户身份快照
+ * 只包含本地ID、评论权限与展示字段，供评论/点赞热路径使用，避免每次请求查询用户表
+ */
+public record UserIdentity(Long id,
+                           Long githubId,
+                           String username,
+                           String avatarUrl,
+                           boolean comPermissions) {
+
+    public static UserIdentity of(User user) {
+        return new UserIdentity(user.getId(), user.getGithubId(), user.getUsername(), user.getAvatarUrl(),
+                Boolean.TRUE.equals(user.getComPermissions()));
+    }
+}
@@ -0,0 +1,10 @@
+package com.goatyang.cmbackend.dto;
+
+import java.time.LocalDate;
+
+/**
+ * 用户统计与用户资料
+ */
+public record UserStatView(Long userId, String username, String avatarUrl, Long commentCount,
+                           Long likesReceived, LocalDate lastActiveDate) {
+}
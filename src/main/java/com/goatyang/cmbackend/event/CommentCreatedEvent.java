@@ -0,0 +1,13 @@
+package com.goatyang.cmbackend.event;
+
+import com.goatyang.cmbackend.dto.CommentNode;
+
+/**
+ * 评论创建事件
+ * 由CommentService在评论保存后发布，事务提交后分发给各监听者
+ *
+ * @param userId  评论作者的本地用户ID
+ * @param comment 新评论节点（展示视图与父评论/楼层ID），供实时推送直接使用
+ */
+public record CommentCreatedEvent(Long commentId, Long userId, String articlePath, CommentNode comment) {
+}
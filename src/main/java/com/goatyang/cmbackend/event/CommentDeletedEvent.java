@@ -0,0 +1,8 @@
+package com.goatyang.cmbackend.event;
+
+/**
+ * 评论删除事件
+ * 由CommentService在删除评论时发布，事务提交后分发给各监听者
+ */
+public record CommentDeletedEvent(Long commentId, String articlePath) {
+}
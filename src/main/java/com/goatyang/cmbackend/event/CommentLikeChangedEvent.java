@@ -0,0 +1,16 @@
+package com.goatyang.cmbackend.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * 评论点赞数变化事件
+ *
+ * @param userId           点赞/取消点赞的用户ID
+ * @param authorId         评论作者的用户ID
+ * @param delta            点赞数变化量，点赞为正，取消/删除点赞为负
+ * @param likeCount        变化后的点赞数（含尚未写回数据库的增量）
+ * @param commentCreatedAt 评论发布时间
+ */
+public record CommentLikeChangedEvent(Long commentId, String articlePath, Long userId, Long authorId,
+                                      long delta, long likeCount, LocalDateTime commentCreatedAt) {
+}
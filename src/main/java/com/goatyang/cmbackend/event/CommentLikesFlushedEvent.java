@@ -0,0 +1,10 @@
+package com.goatyang.cmbackend.event;
+
+import java.util.Set;
+
+/**
+ * 点赞数批量写回事件
+ * 由LikeCountAggregator在增量写回数据库后发布，携带受影响的文章路径
+ */
+public record CommentLikesFlushedEvent(Set<String> articlePaths) {
+}
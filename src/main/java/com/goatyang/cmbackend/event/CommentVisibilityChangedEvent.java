@@ -0,0 +1,9 @@
+package com.goatyang.cmbackend.event;
+
+/**
+ * 评论公开可见性变化事件
+ * 审核流水线标记评论时以 visible=false 发布（评论从公开列表中隐藏），
+ * 管理员审核通过被标记的评论时以 visible=true 发布（评论恢复展示）
+ */
+public record CommentVisibilityChangedEvent(Long commentId, String articlePath, boolean visible) {
+}
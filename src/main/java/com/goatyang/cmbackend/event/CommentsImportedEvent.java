@@ -0,0 +1,11 @@
+package com.goatyang.cmbackend.event;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 评论批量导入事件
+ * 由CommentImportService在每个分块事务内发布，携带本块导入的评论ID与受影响的文章路径
+ */
+public record CommentsImportedEvent(List<Long> commentIds, Set<String> articlePaths) {
+}
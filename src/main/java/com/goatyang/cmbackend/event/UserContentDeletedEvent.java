@@ -0,0 +1,14 @@
+package com.goatyang.cmbackend.event;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 用户级联删除事件
+ * 由UserCascadeDeleteService在批量删除用户的评论与点赞后发布
+ *
+ * @param commentIds   被删除的评论ID（该用户发布的评论）
+ * @param articlePaths 受影响的文章路径（评论被删除或点赞数被扣减的文章）
+ */
+public record UserContentDeletedEvent(Long userId, List<Long> commentIds, Set<String> articlePaths) {
+}
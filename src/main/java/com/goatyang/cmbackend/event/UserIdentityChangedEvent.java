@@ -0,0 +1,8 @@
+package com.goatyang.cmbackend.event;
+
+/**
+ * 用户身份信息变更事件
+ * 权限修改、用户删除或重新登录同步GitHub资料后发布，事务提交后失效用户身份缓存
+ */
+public record UserIdentityChangedEvent(Long githubId) {
+}
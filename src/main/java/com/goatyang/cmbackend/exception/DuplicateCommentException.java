@@ -0,0 +1,11 @@
+package com.goatyang.cmbackend.exception;
+
+/**
+ * 短时间内已有过多相同或近似内容的评论，拒绝发布
+ */
+public class DuplicateCommentException extends RuntimeException {
+
+    public DuplicateCommentException() {
+        super("相同或相似的内容近期已发布过多次，请勿重复发布");
+    }
+}
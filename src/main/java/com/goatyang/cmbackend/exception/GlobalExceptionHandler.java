@@ -1,6 +1,10 @@
 package com.goatyang.cmbackend.exception;
 
 import com.goatyang.cmbackend.util.ApiResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -9,6 +13,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 /**
  * 全局异常处理器
  */
+@Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -40,14 +45,30 @@ public class GlobalExceptionHandler {
         return ApiResponse.error(403, e.getMessage() != null ? e.getMessage() : "您没有操作该资源的权限");
     }
 
+    /**
+     * 处理限流异常：返回HTTP 429，并通过 Retry-After 告知客户端等待秒数
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ApiResponse<Void>> handleRateLimitExceededException(RateLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ApiResponse.error(429, e.getMessage()));
+    }
+
+    /**
+     * 处理重复内容异常（相同或近似的评论发布过多）
+     */
+    @ExceptionHandler(DuplicateCommentException.class)
+    public ApiResponse<Void> handleDuplicateCommentException(DuplicateCommentException e) {
+        return ApiResponse.error(409, e.getMessage());
+    }
 
     /**
      * 处理所有未捕获的异常
      */
     @ExceptionHandler(Exception.class)
     public ApiResponse<Void> handleException(Exception e) {
-        // 这里可以打印日志，便于排查问题
-        e.printStackTrace();
+        log.error("未处理的异常", e);
         return ApiResponse.error(500, "服务器内部错误，请稍后再试");
     }
 }
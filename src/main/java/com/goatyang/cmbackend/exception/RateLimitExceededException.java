@@ -0,0 +1,19 @@
+package com.goatyang.cmbackend.exception;
+
+/**
+ * 写接口请求频率超过限制
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    /** 建议客户端等待的秒数，用作 Retry-After */
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(long retryAfterSeconds) {
+        super("请求过于频繁，请 " + retryAfterSeconds + " 秒后再试");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,41 @@
+package com.goatyang.cmbackend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 文章每日评论数，由 CommentStatsAggregator 增量写入、CommentStatsService 每晚对账
+ */
+@Data
+@Entity
+@Table(name = "article_daily_stats", indexes = {
+        // 某天评论最多的文章：WHERE stat_date = ? ORDER BY comment_count DESC
+        @Index(name = "idx_article_daily_stats_date_count", columnList = "stat_date, comment_count")
+})
+@IdClass(ArticleDailyStat.Key.class)
+public class ArticleDailyStat {
+
+    @Id
+    @Column(name = "article_path", nullable = false, length = 255)
+    private String articlePath;
+
+    @Id
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "comment_count", nullable = false)
+    private Long commentCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String articlePath;
+        private LocalDate statDate;
+    }
+}
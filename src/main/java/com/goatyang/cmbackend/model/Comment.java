@@ -1,8 +1,10 @@
 package com.goatyang.cmbackend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.goatyang.cmbackend.util.ContentFingerprint;
 import jakarta.persistence.*;
 import lombok.Data;
-import org.hibernate.annotations.DynamicInsert;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
@@ -10,13 +12,44 @@ import java.util.Optional;
 
 @Data
 @Entity
-@Table(name = "comment")
-@DynamicInsert
+@Table(name = "comment", indexes = {
+        // 文章公开评论数与最新评论时间：WHERE article_path = ? AND moderation_status <> 'FLAGGED'（覆盖索引）
+        @Index(name = "idx_comment_article_created_status", columnList = "article_path, created_at, moderation_status"),
+        // 管理端搜索：按用户筛选并按时间排序
+        @Index(name = "idx_comment_user_created", columnList = "user_id, created_at"),
+        // 管理端搜索：按时间范围筛选/排序
+        @Index(name = "idx_comment_created", columnList = "created_at, comment_id"),
+        // 管理端搜索：按最少点赞数筛选/按点赞数排序
+        @Index(name = "idx_comment_like_count", columnList = "like_count, comment_id"),
+        // 楼层分页：WHERE article_path = ? AND parent_id IS NULL ORDER BY created_at DESC, comment_id DESC
+        @Index(name = "idx_comment_article_parent_created", columnList = "article_path, parent_id, created_at, comment_id"),
+        // 加载楼层内回复：WHERE root_id IN (...) ORDER BY created_at, comment_id
+        @Index(name = "idx_comment_root_created", columnList = "root_id, created_at, comment_id"),
+        // 管理端按审核状态列出评论、补扫积压的待审核评论
+        @Index(name = "idx_comment_moderation", columnList = "moderation_status, comment_id"),
+        // 查找时间窗口内的完全重复与近似重复评论：WHERE content_hash = ? / simhash_bandN = ? AND created_at >= ?
+        @Index(name = "idx_comment_content_hash", columnList = "content_hash, created_at"),
+        @Index(name = "idx_comment_simhash_band0", columnList = "simhash_band0, created_at"),
+        @Index(name = "idx_comment_simhash_band1", columnList = "simhash_band1, created_at"),
+        @Index(name = "idx_comment_simhash_band2", columnList = "simhash_band2, created_at"),
+        @Index(name = "idx_comment_simhash_band3", columnList = "simhash_band3, created_at"),
+        @Index(name = "idx_comment_simhash_band4", columnList = "simhash_band4, created_at"),
+        @Index(name = "idx_comment_simhash_band5", columnList = "simhash_band5, created_at")
+})
+// 不使用 @DynamicInsert：动态INSERT语句无法进入JDBC批处理
 @DynamicUpdate
 public class Comment {
 
+    /** 每次从ID表预取的ID个数，与 hibernate.jdbc.batch_size 一致 */
+    public static final int ID_ALLOCATION_SIZE = 500;
+
+    /**
+     * ID从 id_generator 表按段分配（见 CommentIdAllocator），INSERT可以进入JDBC批处理；
+     * IDENTITY主键必须逐条执行INSERT才能拿到ID，会让Hibernate关闭批量插入。
+     * 号段的起始值由 IdGeneratorAligner 在启动时对齐到现有最大ID之后
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @CommentIdGenerator.Allocated
     @Column(name = "comment_id", nullable = false, updatable = false)
     private Long commentId;
 
@@ -33,11 +66,83 @@ public class Comment {
     @Column(name = "like_count", nullable = false)
     private Long likeCount;
 
+    @Column(name = "parent_id", updatable = false)
+    private Long parentId; // 直接回复的评论ID，楼层（顶层评论）为null
+
+    @Column(name = "root_id", updatable = false)
+    private Long rootId; // 所属楼层的顶层评论ID，楼层本身为null
+
+    /**
+     * 物化路径：从楼层到父评论的祖先ID链，如 "/12/45/"；楼层为null。
+     * 某评论的全部后代即 path 以 CommentPaths.childPath(path, commentId) 开头的评论
+     */
+    @Column(name = "path", updatable = false, length = 255)
+    private String path;
+
+    @ColumnDefault("0")
+    @Column(name = "reply_count", nullable = false)
+    private Long replyCount = 0L; // 后代回复总数（含多级回复），增量维护
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    // 已有评论视为已审核；新评论以待审核保存，由 ModerationPipeline 异步更新
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'APPROVED'")
+    @Column(name = "moderation_status", nullable = false, length = 16)
+    private ModerationStatus moderationStatus = ModerationStatus.PENDING;
+
+    @Column(name = "moderation_reason", length = 255)
+    private String moderationReason; // 被标记的原因，如 "keyword:xxx"
+
+    // 内容指纹（见 ContentFingerprint），历史评论由 ContentFingerprintService 回填
+    @Column(name = "content_hash", updatable = false)
+    private Long contentHash;
+
+    @Column(name = "simhash", updatable = false)
+    private Long simhash;
+
+    @JsonIgnore
+    @Column(name = "simhash_band0", updatable = false)
+    private Integer simhashBand0;
+
+    @JsonIgnore
+    @Column(name = "simhash_band1", updatable = false)
+    private Integer simhashBand1;
+
+    @JsonIgnore
+    @Column(name = "simhash_band2", updatable = false)
+    private Integer simhashBand2;
+
+    @JsonIgnore
+    @Column(name = "simhash_band3", updatable = false)
+    private Integer simhashBand3;
+
+    @JsonIgnore
+    @Column(name = "simhash_band4", updatable = false)
+    private Integer simhashBand4;
+
+    @JsonIgnore
+    @Column(name = "simhash_band5", updatable = false)
+    private Integer simhashBand5;
+
+    /** 写入内容指纹及 simhash 的各段 */
+    public void setFingerprint(ContentFingerprint fingerprint) {
+        contentHash = fingerprint.contentHash();
+        simhash = fingerprint.simhash();
+        simhashBand0 = fingerprint.band(0);
+        simhashBand1 = fingerprint.band(1);
+        simhashBand2 = fingerprint.band(2);
+        simhashBand3 = fingerprint.band(3);
+        simhashBand4 = fingerprint.band(4);
+        simhashBand5 = fingerprint.band(5);
+    }
+
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        // 批量导入的历史评论保留原始时间
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 }
@@ -0,0 +1,36 @@
+package com.goatyang.cmbackend.model;
+
+import com.goatyang.cmbackend.service.CommentIdAllocator;
+import org.hibernate.annotations.IdGeneratorType;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 评论ID生成器：persist时向 CommentIdAllocator 取号，ID在INSERT前确定，INSERT可以进入JDBC批处理。
+ * 由Hibernate通过Spring Bean容器创建，分配器按构造器注入
+ */
+public class CommentIdGenerator implements IdentifierGenerator {
+
+    /** 标注在评论主键上 */
+    @IdGeneratorType(CommentIdGenerator.class)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.FIELD, ElementType.METHOD})
+    public @interface Allocated {
+    }
+
+    private final CommentIdAllocator allocator;
+
+    public CommentIdGenerator(CommentIdAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return allocator.nextId();
+    }
+}
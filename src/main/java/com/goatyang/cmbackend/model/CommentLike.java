@@ -9,7 +9,15 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "comment_like")
+@Table(name = "comment_like", uniqueConstraints = {
+        // 每个用户对每条评论只有一条点赞记录，点赞/取消点赞在该记录上切换状态
+        @UniqueConstraint(name = "uk_comment_like_comment_user", columnNames = {"comment_id", "user_id"})
+}, indexes = {
+        // 批量查询“我点赞过的评论”：按用户定位，覆盖 comment_id 与状态
+        @Index(name = "idx_comment_like_user_comment", columnList = "user_id, comment_id, is_canceled"),
+        // 统计对账按日期范围汇总点赞数与活跃用户
+        @Index(name = "idx_comment_like_created", columnList = "created_at, user_id, is_canceled")
+})
 @DynamicInsert
 @DynamicUpdate
 public class CommentLike {
@@ -0,0 +1,28 @@
+package com.goatyang.cmbackend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 全站每日统计，由 CommentStatsAggregator 增量写入、CommentStatsService 每晚对账
+ */
+@Data
+@Entity
+@Table(name = "daily_stats")
+public class DailyStat {
+
+    @Id
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "comment_count", nullable = false)
+    private Long commentCount; // 当天发表的评论数
+
+    @Column(name = "like_count", nullable = false)
+    private Long likeCount; // 当天新增的有效点赞数
+
+    @Column(name = "active_users", nullable = false)
+    private Long activeUsers; // 当天发表评论或点赞的去重用户数
+}
@@ -0,0 +1,12 @@
+package com.goatyang.cmbackend.model;
+
+/**
+ * 评论审核状态
+ * 新评论以 PENDING 保存，由审核流水线异步判定为 APPROVED 或 FLAGGED；
+ * 被标记的评论仍正常展示，等待管理员通过或删除
+ */
+public enum ModerationStatus {
+    PENDING,
+    APPROVED,
+    FLAGGED
+}
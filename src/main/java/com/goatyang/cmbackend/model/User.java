@@ -1,5 +1,6 @@
 package com.goatyang.cmbackend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.DynamicInsert;
@@ -34,6 +35,7 @@ public class User {
     @Column(name = "email", length = 150)
     private String email;
 
+    @JsonIgnore // GitHub访问令牌不参与任何接口的序列化
     @Column(name = "access_token", length = 255)
     private String accessToken;
 
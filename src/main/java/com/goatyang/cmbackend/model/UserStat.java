@@ -0,0 +1,34 @@
+package com.goatyang.cmbackend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 用户累计统计，由 CommentStatsAggregator 增量写入、CommentStatsService 每晚对账
+ */
+@Data
+@Entity
+@Table(name = "user_stats", indexes = {
+        // 评论最多 / 获赞最多的用户
+        @Index(name = "idx_user_stats_comment_count", columnList = "comment_count"),
+        @Index(name = "idx_user_stats_likes_received", columnList = "likes_received"),
+        // 恢复当天已计入活跃数的用户
+        @Index(name = "idx_user_stats_last_active", columnList = "last_active_date")
+})
+public class UserStat {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "comment_count", nullable = false)
+    private Long commentCount; // 发表的评论数
+
+    @Column(name = "likes_received", nullable = false)
+    private Long likesReceived; // 发表的评论收到的有效点赞数
+
+    @Column(name = "last_active_date")
+    private LocalDate lastActiveDate; // 最近一次发表评论或点赞的日期
+}
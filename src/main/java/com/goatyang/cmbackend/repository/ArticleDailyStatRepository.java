@@ -0,0 +1,20 @@
+package com.goatyang.cmbackend.repository;
+
+import com.goatyang.cmbackend.model.ArticleDailyStat;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ArticleDailyStatRepository extends JpaRepository<ArticleDailyStat, ArticleDailyStat.Key> {
+
+    /** 某篇文章在日期范围内的每日评论数（按主键范围读取） */
+    List<ArticleDailyStat> findByArticlePathAndStatDateBetweenOrderByStatDate(String articlePath,
+                                                                              LocalDate from, LocalDate to);
+
+    /** 某天评论最多的文章 */
+    List<ArticleDailyStat> findByStatDateOrderByCommentCountDesc(LocalDate statDate, Limit limit);
+}
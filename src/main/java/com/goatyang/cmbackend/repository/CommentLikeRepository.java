@@ -2,10 +2,13 @@ package com.goatyang.cmbackend.repository;
 
 import com.goatyang.cmbackend.model.CommentLike;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +25,22 @@ public interface CommentLikeRepository extends JpaRepository<CommentLike, Long>
     Optional<CommentLike> findByCommentIdAndUserIdWithFetch(@Param("commentId") Long commentId,
                                                             @Param("userId") Long userId);
 
+    /**
+     * 查询用户在某篇文章下点赞过的评论ID（只取ID，不加载实体）
+     */
+    @Query("SELECT cl.comment.commentId FROM CommentLike cl " +
+            "WHERE cl.user.id = :userId AND cl.isCanceled = false AND cl.comment.articlePath = :articlePath")
+    List<Long> findLikedCommentIdsByArticlePath(@Param("userId") Long userId,
+                                                @Param("articlePath") String articlePath);
+
+    /**
+     * 查询用户在给定评论中点赞过的评论ID（只取ID，不加载实体）
+     */
+    @Query("SELECT cl.comment.commentId FROM CommentLike cl " +
+            "WHERE cl.user.id = :userId AND cl.isCanceled = false AND cl.comment.commentId IN :commentIds")
+    List<Long> findLikedCommentIdsIn(@Param("userId") Long userId,
+                                     @Param("commentIds") Collection<Long> commentIds);
+
     /**
      * 统计某评论的有效点赞数（未取消的点赞）
      */
@@ -51,12 +70,55 @@ public interface CommentLikeRepository extends JpaRepository<CommentLike, Long>
     List<CommentLike> findByUserIdWithCommentAndUsers(@Param("userId") Long userId);
 
     /**
-     * 批量删除某评论的所有点赞记录
+     * 插入点赞记录，(comment_id, user_id) 已存在时忽略
+     *
+     * @return 1表示新插入，0表示记录已存在
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO comment_like (comment_id, user_id, is_canceled, created_at) " +
+            "VALUES (:commentId, :userId, false, :createdAt)", nativeQuery = true)
+    int insertIfAbsent(@Param("commentId") Long commentId,
+                       @Param("userId") Long userId,
+                       @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * 仅当点赞状态不同时更新取消状态
+     *
+     * @return 1表示状态发生翻转，0表示状态未变或记录不存在
+     */
+    @Modifying
+    @Query("UPDATE CommentLike cl SET cl.isCanceled = :isCanceled " +
+            "WHERE cl.comment.commentId = :commentId AND cl.user.id = :userId AND cl.isCanceled <> :isCanceled")
+    int updateCanceledIfChanged(@Param("commentId") Long commentId,
+                                @Param("userId") Long userId,
+                                @Param("isCanceled") Boolean isCanceled);
+
+    /**
+     * 查询用户有效点赞所涉及的文章路径
+     */
+    @Query("SELECT DISTINCT cl.comment.articlePath FROM CommentLike cl " +
+            "WHERE cl.user.id = :userId AND cl.isCanceled = false")
+    List<String> findLikedArticlePathsByUserId(@Param("userId") Long userId);
+
+    /**
+     * 批量删除多条评论的所有点赞记录（单条DELETE语句，不加载实体）
+     */
+    @Modifying
+    @Query("DELETE FROM CommentLike cl WHERE cl.comment.commentId IN :commentIds")
+    int deleteByCommentIds(@Param("commentIds") Collection<Long> commentIds);
+
+    /**
+     * 批量删除某用户的所有点赞记录（单条DELETE语句，不加载实体）
      */
-    void deleteByComment_CommentId(Long commentId);
+    @Modifying
+    @Query("DELETE FROM CommentLike cl WHERE cl.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
 
     /**
-     * 批量删除某用户的所有点赞记录
+     * 批量删除某用户发布的所有评论下的点赞记录（单条DELETE语句，不加载实体）
      */
-    void deleteByUser_Id(Long userId);
+    @Modifying
+    @Query("DELETE FROM CommentLike cl WHERE cl.comment.commentId IN " +
+            "(SELECT c.commentId FROM Comment c WHERE c.user.id = :userId)")
+    int deleteByCommentUserId(@Param("userId") Long userId);
 }
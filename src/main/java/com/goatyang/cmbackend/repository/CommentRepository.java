@@ -1,47 +1,210 @@
 package com.goatyang.cmbackend.repository;
 
+import com.goatyang.cmbackend.dto.ArticleCommentGroup;
+import com.goatyang.cmbackend.dto.ArticleCommentSummary;
+import com.goatyang.cmbackend.dto.CommentExportRow;
+import com.goatyang.cmbackend.dto.CommentNode;
+import com.goatyang.cmbackend.dto.CommentRef;
+import com.goatyang.cmbackend.dto.CommentScore;
+import com.goatyang.cmbackend.dto.CommentText;
+import com.goatyang.cmbackend.dto.CommentView;
+import com.goatyang.cmbackend.dto.FingerprintMatch;
+import com.goatyang.cmbackend.dto.ModerationTask;
 import com.goatyang.cmbackend.model.Comment;
+import com.goatyang.cmbackend.model.ModerationStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface CommentRepository extends JpaRepository<Comment, Long> {
+public interface CommentRepository extends JpaRepository<Comment, Long>, JpaSpecificationExecutor<Comment> {
 
     /**
-     * 查询所有评论并加载用户信息
+     * 流式读取全部评论用于导出（按评论ID顺序）
+     * 配合连接串 useCursorFetch=true，MySQL驱动按 fetchSize 分批从服务端游标取数，内存占用与表大小无关；
+     * 调用方需在只读事务中消费并关闭Stream
      */
-    @Query("SELECT c FROM Comment c JOIN FETCH c.user ORDER BY c.createdAt DESC")
-    List<Comment> findAllWithUser();
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentExportRow(" +
+            "c.commentId, c.articlePath, u.id, u.username, c.content, c.likeCount, c.createdAt) " +
+            "FROM Comment c JOIN c.user u ORDER BY c.commentId")
+    Stream<CommentExportRow> streamAllForExport();
 
     /**
-     * 根据文章路径查询评论（带用户信息）
+     * 流式读取全部评论正文用于重建全文检索索引（按评论ID顺序），调用方需在事务中消费并关闭Stream
      */
-    @Query("SELECT c FROM Comment c JOIN FETCH c.user " +
-            "WHERE c.articlePath = :articlePath ORDER BY c.createdAt DESC")
-    List<Comment> findByArticlePath(@Param("articlePath") String articlePath);
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentText(c.commentId, c.content) FROM Comment c ORDER BY c.commentId")
+    Stream<CommentText> streamAllTexts();
+
+    /** 根据评论ID批量查询评论正文 */
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentText(c.commentId, c.content) " +
+            "FROM Comment c WHERE c.commentId IN :commentIds")
+    List<CommentText> findTextsByIds(@Param("commentIds") Collection<Long> commentIds);
+
+    /** 根据评论ID批量查询评论实体，同时加载作者 */
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.commentId IN :commentIds")
+    List<Comment> findWithUserByIds(@Param("commentIds") Collection<Long> commentIds);
+
+    /**
+     * 根据文章路径查询第一页评论视图（只查询展示字段，只含楼层，按创建时间、评论ID倒序）
+     * 平铺列表不展示回复，回复通过评论树接口按楼层获取；公开查询均排除被审核标记的评论
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentView(" +
+            "c.commentId, c.content, c.likeCount, c.createdAt, u.username, u.avatarUrl) " +
+            "FROM Comment c JOIN c.user u " +
+            "WHERE c.articlePath = :articlePath AND c.parentId IS NULL " +
+            "AND c.moderationStatus <> com.goatyang.cmbackend.model.ModerationStatus.FLAGGED " +
+            "ORDER BY c.createdAt DESC, c.commentId DESC")
+    List<CommentView> findFirstPageByArticlePath(@Param("articlePath") String articlePath, Limit limit);
+
+    /**
+     * 根据文章路径查询游标之后的一页楼层评论视图（keyset分页，命中 article_path, parent_id, created_at, comment_id 索引）
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentView(" +
+            "c.commentId, c.content, c.likeCount, c.createdAt, u.username, u.avatarUrl) " +
+            "FROM Comment c JOIN c.user u " +
+            "WHERE c.articlePath = :articlePath AND c.parentId IS NULL " +
+            "AND c.moderationStatus <> com.goatyang.cmbackend.model.ModerationStatus.FLAGGED " +
+            "AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.commentId < :commentId)) " +
+            "ORDER BY c.createdAt DESC, c.commentId DESC")
+    List<CommentView> findPageByArticlePathAfter(@Param("articlePath") String articlePath,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("commentId") Long commentId,
+                                                 Limit limit);
+
+    /**
+     * 查询某篇文章第一页楼层（顶层评论），按创建时间、评论ID倒序
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentNode(" +
+            "c.commentId, c.content, c.likeCount, c.createdAt, u.username, u.avatarUrl, c.parentId, c.rootId, c.replyCount) " +
+            "FROM Comment c JOIN c.user u " +
+            "WHERE c.articlePath = :articlePath AND c.parentId IS NULL " +
+            "AND c.moderationStatus <> com.goatyang.cmbackend.model.ModerationStatus.FLAGGED " +
+            "ORDER BY c.createdAt DESC, c.commentId DESC")
+    List<CommentNode> findFirstRootPageByArticlePath(@Param("articlePath") String articlePath, Limit limit);
+
+    /**
+     * 查询游标之后的一页楼层（keyset分页，命中 article_path, parent_id, created_at, comment_id 索引）
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentNode(" +
+            "c.commentId, c.content, c.likeCount, c.createdAt, u.username, u.avatarUrl, c.parentId, c.rootId, c.replyCount) " +
+            "FROM Comment c JOIN c.user u " +
+            "WHERE c.articlePath = :articlePath AND c.parentId IS NULL " +
+            "AND c.moderationStatus <> com.goatyang.cmbackend.model.ModerationStatus.FLAGGED " +
+            "AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.commentId < :commentId)) " +
+            "ORDER BY c.createdAt DESC, c.commentId DESC")
+    List<CommentNode> findRootPageByArticlePathAfter(@Param("articlePath") String articlePath,
+                                                     @Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("commentId") Long commentId,
+                                                     Limit limit);
+
+    /**
+     * 一次查询多个楼层各自最早的 perRoot 条回复，按创建时间、评论ID正序
+     * 回复一定晚于其父评论创建，因此每个楼层取到的回复总是包含各自的父评论（或楼层本身），可直接组装成树；
+     * 父评论被审核标记而隐藏时，其回复挂到所属楼层
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentNode(" +
+            "c.commentId, c.content, c.likeCount, c.createdAt, u.username, u.avatarUrl, c.parentId, c.rootId, c.replyCount) " +
+            "FROM Comment c JOIN c.user u " +
+            "WHERE c.commentId IN (" +
+            "  SELECT r.commentId FROM (" +
+            "    SELECT c2.commentId AS commentId, " +
+            "      ROW_NUMBER() OVER (PARTITION BY c2.rootId ORDER BY c2.createdAt, c2.commentId) AS rn " +
+            "    FROM Comment c2 WHERE c2.rootId IN :rootIds " +
+            "    AND c2.moderationStatus <> com.goatyang.cmbackend.model.ModerationStatus.FLAGGED" +
+            "  ) r WHERE r.rn <= :perRoot" +
+            ") ORDER BY c.createdAt, c.commentId")
+    List<CommentNode> findFirstRepliesByRootIds(@Param("rootIds") Collection<Long> rootIds,
+                                                @Param("perRoot") long perRoot);
+
+    /**
+     * 查询某评论的后代回复第一页（楼层内 path 前缀匹配），按创建时间、评论ID正序
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentNode(" +
+            "c.commentId, c.content, c.likeCount, c.createdAt, u.username, u.avatarUrl, c.parentId, c.rootId, c.replyCount) " +
+            "FROM Comment c JOIN c.user u " +
+            "WHERE c.rootId = :rootId AND c.path LIKE :pathPrefix " +
+            "AND c.moderationStatus <> com.goatyang.cmbackend.model.ModerationStatus.FLAGGED " +
+            "ORDER BY c.createdAt, c.commentId")
+    List<CommentNode> findFirstDescendants(@Param("rootId") Long rootId,
+                                           @Param("pathPrefix") String pathPrefix,
+                                           Limit limit);
 
     /**
-     * 根据用户ID查询该用户发布的所有评论（带用户信息）
+     * 查询某评论游标之后的一页后代回复
      */
-    @Query("SELECT c FROM Comment c JOIN FETCH c.user " +
-            "WHERE c.user.id = :userId ORDER BY c.createdAt DESC")
-    List<Comment> findByUserId(@Param("userId") Long userId);
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentNode(" +
+            "c.commentId, c.content, c.likeCount, c.createdAt, u.username, u.avatarUrl, c.parentId, c.rootId, c.replyCount) " +
+            "FROM Comment c JOIN c.user u " +
+            "WHERE c.rootId = :rootId AND c.path LIKE :pathPrefix " +
+            "AND c.moderationStatus <> com.goatyang.cmbackend.model.ModerationStatus.FLAGGED " +
+            "AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.commentId > :commentId)) " +
+            "ORDER BY c.createdAt, c.commentId")
+    List<CommentNode> findDescendantsAfter(@Param("rootId") Long rootId,
+                                           @Param("pathPrefix") String pathPrefix,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("commentId") Long commentId,
+                                           Limit limit);
 
     /**
-     * 查询某个时间范围内的评论（带用户信息）
+     * 查询某评论全部后代回复的ID
      */
-    @Query("SELECT c FROM Comment c JOIN FETCH c.user " +
-            "WHERE c.createdAt BETWEEN :startTime AND :endTime ORDER BY c.createdAt DESC")
-    List<Comment> findByCreatedAtBetween(@Param("startTime") LocalDateTime startTime,
-                                         @Param("endTime") LocalDateTime endTime);
+    @Query("SELECT c.commentId FROM Comment c WHERE c.rootId = :rootId AND c.path LIKE :pathPrefix")
+    List<Long> findDescendantIds(@Param("rootId") Long rootId, @Param("pathPrefix") String pathPrefix);
+
+    /**
+     * 查询若干楼层内全部回复的引用（不含楼层本身）
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentRef(c.commentId, c.articlePath, c.path) " +
+            "FROM Comment c WHERE c.rootId IN :rootIds")
+    List<CommentRef> findReplyRefsByRootIds(@Param("rootIds") Collection<Long> rootIds);
+
+    /**
+     * 查询某篇文章所有评论的排名字段（评论ID、点赞数、发布时间），用于构建热门评论榜
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentScore(c.commentId, c.likeCount, c.createdAt) " +
+            "FROM Comment c WHERE c.articlePath = :articlePath " +
+            "AND c.moderationStatus <> com.goatyang.cmbackend.model.ModerationStatus.FLAGGED")
+    List<CommentScore> findScoresByArticlePath(@Param("articlePath") String articlePath);
+
+    /**
+     * 根据评论ID批量查询评论视图
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentView(" +
+            "c.commentId, c.content, c.likeCount, c.createdAt, u.username, u.avatarUrl) " +
+            "FROM Comment c JOIN c.user u WHERE c.commentId IN :commentIds " +
+            "AND c.moderationStatus <> com.goatyang.cmbackend.model.ModerationStatus.FLAGGED")
+    List<CommentView> findViewsByIds(@Param("commentIds") Collection<Long> commentIds);
+
+    /**
+     * 按最新评论时间倒序查询文章路径
+     */
+    @Query("SELECT c.articlePath FROM Comment c GROUP BY c.articlePath ORDER BY MAX(c.createdAt) DESC")
+    List<String> findRecentlyCommentedArticlePaths(Limit limit);
 
     /**
      * 统计某篇文章的评论总数
@@ -49,6 +212,23 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     @Query("SELECT COUNT(c) FROM Comment c WHERE c.articlePath = :articlePath")
     long countByArticlePath(@Param("articlePath") String articlePath);
 
+    /**
+     * 汇总某篇文章公开展示的评论数与最新评论时间（命中 article_path, created_at, moderation_status 覆盖索引）
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.ArticleCommentSummary(COUNT(c), MAX(c.createdAt)) " +
+            "FROM Comment c WHERE c.articlePath = :articlePath " +
+            "AND c.moderationStatus <> com.goatyang.cmbackend.model.ModerationStatus.FLAGGED")
+    ArticleCommentSummary summarizeByArticlePath(@Param("articlePath") String articlePath);
+
+    /**
+     * 一次分组汇总多篇文章公开展示的评论数与最新评论时间（没有评论的文章不返回）
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.ArticleCommentGroup(c.articlePath, COUNT(c), MAX(c.createdAt)) " +
+            "FROM Comment c WHERE c.articlePath IN :articlePaths " +
+            "AND c.moderationStatus <> com.goatyang.cmbackend.model.ModerationStatus.FLAGGED " +
+            "GROUP BY c.articlePath")
+    List<ArticleCommentGroup> summarizeByArticlePaths(@Param("articlePaths") Collection<String> articlePaths);
+
     /**
      * 根据评论ID查询评论详情（带用户信息，避免懒加载）
      */
@@ -56,16 +236,62 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     Optional<Comment> findByCommentIdWithUser(@Param("commentId") Long commentId);
 
     /**
-     * 批量删除某用户的所有评论
+     * 查询某用户发布的所有评论引用（只取评论ID与文章路径）
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.CommentRef(c.commentId, c.articlePath, c.path) " +
+            "FROM Comment c WHERE c.user.id = :userId")
+    List<CommentRef> findRefsByUserId(@Param("userId") Long userId);
+
+    /**
+     * 批量删除某用户的所有评论（单条DELETE语句，不加载实体）
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Comment c WHERE c.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * 按评论ID批量删除（单条DELETE语句，不加载实体）
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Comment c WHERE c.commentId IN :commentIds")
+    int deleteByCommentIds(@Param("commentIds") Collection<Long> commentIds);
+
+    /**
+     * 批量删除某篇文章的所有评论（单条DELETE语句，不加载实体）
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Comment c WHERE c.articlePath = :articlePath")
+    int deleteByArticlePath(@Param("articlePath") String articlePath);
+
+    /**
+     * 一次性扣减某用户有效点赞过的所有评论的点赞数
+     * (comment_id, user_id) 唯一，每条评论最多被该用户点赞一次，分组计数恒为1，
+     * 因此 JOIN (SELECT comment_id, COUNT(*) ... GROUP BY comment_id) 可简化为 IN 子查询
      */
+    @Modifying
     @Transactional
-    void deleteByUserId(Long userId);
+    @Query("UPDATE Comment c SET c.likeCount = GREATEST(c.likeCount - 1, 0) WHERE c.commentId IN " +
+            "(SELECT cl.comment.commentId FROM CommentLike cl WHERE cl.user.id = :userId AND cl.isCanceled = false)")
+    int decrementLikeCountsLikedByUser(@Param("userId") Long userId);
 
     /**
-     * 批量删除某篇文章的所有评论
+     * 新增回复后，为其所有祖先评论的回复数加1
      */
+    @Modifying
     @Transactional
-    void deleteByArticlePath(String articlePath);
+    @Query("UPDATE Comment c SET c.replyCount = c.replyCount + 1 WHERE c.commentId IN :commentIds")
+    int incrementReplyCounts(@Param("commentIds") Collection<Long> commentIds);
+
+    /**
+     * 删除回复后，为指定祖先评论的回复数减去 delta（确保不会小于0）
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Comment c SET c.replyCount = GREATEST(c.replyCount - :delta, 0) WHERE c.commentId IN :commentIds")
+    int decrementReplyCounts(@Param("commentIds") Collection<Long> commentIds, @Param("delta") long delta);
 
     /**
      * 为指定评论的点赞数加1
@@ -90,4 +316,57 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     @Transactional
     @Query("UPDATE Comment c SET c.likeCount = 0 WHERE c.commentId = :commentId")
     void resetLikeCount(@Param("commentId") Long commentId);
+
+    /**
+     * 按审核状态分页查询评论，同时加载作者
+     */
+    @EntityGraph(attributePaths = "user")
+    Slice<Comment> findByModerationStatus(ModerationStatus moderationStatus, Pageable pageable);
+
+    /**
+     * 查询在指定时间之前创建、仍待审核的评论（审核队列满或应用重启而未处理的），按评论ID顺序
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.ModerationTask(" +
+            "c.commentId, c.user.id, c.articlePath, c.content, c.createdAt) " +
+            "FROM Comment c WHERE c.moderationStatus = com.goatyang.cmbackend.model.ModerationStatus.PENDING " +
+            "AND c.createdAt < :before ORDER BY c.commentId")
+    List<ModerationTask> findPendingModeration(@Param("before") LocalDateTime before, Limit limit);
+
+    /**
+     * 仅当评论处于 from 状态时更新审核状态并清空标记原因
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Comment c SET c.moderationStatus = :to, c.moderationReason = null " +
+            "WHERE c.commentId = :commentId AND c.moderationStatus = :from")
+    int updateModerationStatus(@Param("commentId") Long commentId,
+                               @Param("from") ModerationStatus from,
+                               @Param("to") ModerationStatus to);
+
+    /** 时间范围内归一化正文哈希相同的评论ID，新评论在前 */
+    @Query("SELECT c.commentId FROM Comment c WHERE c.contentHash = :contentHash " +
+            "AND c.createdAt >= :from AND c.createdAt <= :to ORDER BY c.createdAt DESC")
+    List<Long> findIdsByContentHash(@Param("contentHash") long contentHash,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    Limit limit);
+
+    /**
+     * 时间范围内任一 simhash 段与给定值相同的评论（近似重复的候选）
+     * 每个段各有 (段值, 创建时间) 索引，MySQL 对OR条件做索引合并，只读取命中的索引区间
+     */
+    @Query("SELECT new com.goatyang.cmbackend.dto.FingerprintMatch(c.commentId, c.contentHash, c.simhash) " +
+            "FROM Comment c WHERE (c.simhashBand0 = :band0 OR c.simhashBand1 = :band1 " +
+            "OR c.simhashBand2 = :band2 OR c.simhashBand3 = :band3 " +
+            "OR c.simhashBand4 = :band4 OR c.simhashBand5 = :band5) " +
+            "AND c.createdAt >= :from AND c.createdAt <= :to ORDER BY c.createdAt DESC")
+    List<FingerprintMatch> findBySimhashBands(@Param("band0") int band0,
+                                              @Param("band1") int band1,
+                                              @Param("band2") int band2,
+                                              @Param("band3") int band3,
+                                              @Param("band4") int band4,
+                                              @Param("band5") int band5,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to,
+                                              Limit limit);
 }
@@ -0,0 +1,50 @@
+package com.goatyang.cmbackend.repository;
+
+import com.goatyang.cmbackend.dto.CommentSearchCriteria;
+import com.goatyang.cmbackend.model.Comment;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 评论查询条件组合
+ * 把管理端的各项筛选拼成一条 WHERE 子句，只对非空条件生成谓词
+ */
+public final class CommentSpecifications {
+
+    private CommentSpecifications() {
+    }
+
+    public static Specification<Comment> matches(CommentSearchCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (criteria.userId() != null) {
+                predicates.add(cb.equal(root.get("user").get("id"), criteria.userId()));
+            }
+            if (criteria.username() != null && !criteria.username().isEmpty()) {
+                predicates.add(cb.equal(root.join("user").get("username"), criteria.username()));
+            }
+            if (criteria.articlePathPrefix() != null && !criteria.articlePathPrefix().isEmpty()) {
+                // 只做前缀匹配，可以走 article_path 开头的索引
+                predicates.add(cb.like(root.get("articlePath"),
+                        escapeLike(criteria.articlePathPrefix()) + "%", '\\'));
+            }
+            if (criteria.startTime() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), criteria.startTime()));
+            }
+            if (criteria.endTime() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), criteria.endTime()));
+            }
+            if (criteria.minLikes() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("likeCount"), criteria.minLikes()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
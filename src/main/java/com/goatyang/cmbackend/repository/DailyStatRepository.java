@@ -0,0 +1,15 @@
+package com.goatyang.cmbackend.repository;
+
+import com.goatyang.cmbackend.model.DailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyStatRepository extends JpaRepository<DailyStat, LocalDate> {
+
+    /** 日期范围内的每日统计（按主键范围读取） */
+    List<DailyStat> findByStatDateBetweenOrderByStatDate(LocalDate from, LocalDate to);
+}
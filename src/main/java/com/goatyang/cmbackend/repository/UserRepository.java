@@ -4,6 +4,8 @@ import com.goatyang.cmbackend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -19,6 +21,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // 根据GitHub ID查询用户（用于GitHub登录时匹配本地用户）
     Optional<User> findByGithubId(Long githubId);
 
+    // 根据一批GitHub ID查询用户（用于批量导入评论时匹配本地用户）
+    List<User> findByGithubIdIn(Collection<Long> githubIds);
+
     // 根据用户名查询用户（用于评论展示、用户资料查询）
     Optional<User> findByUsername(String username);
 
@@ -0,0 +1,34 @@
+package com.goatyang.cmbackend.repository;
+
+import com.goatyang.cmbackend.dto.UserStatView;
+import com.goatyang.cmbackend.model.UserStat;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserStatRepository extends JpaRepository<UserStat, Long> {
+
+    /** 评论最多的用户（沿 comment_count 索引倒序读取，已删除的用户由连接过滤） */
+    @Query("SELECT new com.goatyang.cmbackend.dto.UserStatView(u.id, u.username, u.avatarUrl, " +
+            "s.commentCount, s.likesReceived, s.lastActiveDate) " +
+            "FROM UserStat s JOIN User u ON u.id = s.userId ORDER BY s.commentCount DESC")
+    List<UserStatView> findTopCommenters(Limit limit);
+
+    /** 获赞最多的用户 */
+    @Query("SELECT new com.goatyang.cmbackend.dto.UserStatView(u.id, u.username, u.avatarUrl, " +
+            "s.commentCount, s.likesReceived, s.lastActiveDate) " +
+            "FROM UserStat s JOIN User u ON u.id = s.userId ORDER BY s.likesReceived DESC")
+    List<UserStatView> findTopLiked(Limit limit);
+
+    /** 单个用户的统计 */
+    @Query("SELECT new com.goatyang.cmbackend.dto.UserStatView(u.id, u.username, u.avatarUrl, " +
+            "s.commentCount, s.likesReceived, s.lastActiveDate) " +
+            "FROM UserStat s JOIN User u ON u.id = s.userId WHERE s.userId = :userId")
+    Optional<UserStatView> findView(@Param("userId") Long userId);
+}
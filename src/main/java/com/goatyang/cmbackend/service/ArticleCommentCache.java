@@ -0,0 +1,112 @@
+package com.goatyang.cmbackend.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.goatyang.cmbackend.config.ReadWriteRoutingDataSource;
+import com.goatyang.cmbackend.dto.CommentView;
+import com.goatyang.cmbackend.event.CommentCreatedEvent;
+import com.goatyang.cmbackend.event.CommentDeletedEvent;
+import com.goatyang.cmbackend.event.CommentLikesFlushedEvent;
+import com.goatyang.cmbackend.event.CommentVisibilityChangedEvent;
+import com.goatyang.cmbackend.event.CommentsImportedEvent;
+import com.goatyang.cmbackend.event.UserContentDeletedEvent;
+import com.goatyang.cmbackend.util.CacheLoads;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 文章评论读缓存
+ * 以 articlePath 为键缓存文章第一页评论视图窗口（最多 MAX_PAGE_SIZE + 1 条，不可变），
+ * 容量有界（W-TinyLFU淘汰）并带TTL；楼层评论写入、评论删除或可见性变化提交后、点赞增量写回后失效对应文章
+ */
+@Component
+public class ArticleCommentCache implements MeterBinder {
+
+    private final AsyncCache<String, List<CommentView>> cache;
+
+    public ArticleCommentCache(@Value("${cmbackend.comment-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${cmbackend.comment-cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /** 读取文章第一页窗口，未命中时通过loader从主库加载 */
+    public List<CommentView> getFirstWindow(String articlePath, Function<String, List<CommentView>> loader) {
+        return CacheLoads.getOrLoad(cache, articlePath, path -> List.copyOf(ReadWriteRoutingDataSource.onPrimary(() -> loader.apply(path))));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "article-comments");
+    }
+
+    /** 失效某篇文章的缓存 */
+    public void evict(String articlePath) {
+        cache.synchronous().invalidate(articlePath);
+    }
+
+    /** 缓存统计：命中、未命中、淘汰次数等 */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.synchronous().stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.synchronous().estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        return result;
+    }
+
+    /** 缓存的第一页只含楼层，新回复不影响 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        if (event.comment().parentId() == null) {
+            evict(event.articlePath());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentDeleted(CommentDeletedEvent event) {
+        evict(event.articlePath());
+    }
+
+    /** 楼层被审核标记隐藏或审核通过恢复展示 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentVisibilityChanged(CommentVisibilityChangedEvent event) {
+        evict(event.articlePath());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserContentDeleted(UserContentDeletedEvent event) {
+        event.articlePaths().forEach(this::evict);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentsImported(CommentsImportedEvent event) {
+        event.articlePaths().forEach(this::evict);
+    }
+
+    /**
+     * 点赞数由LikeCountAggregator叠加在读取结果上，缓存只需在增量写回数据库后失效
+     */
+    @EventListener
+    public void onCommentLikesFlushed(CommentLikesFlushedEvent event) {
+        event.articlePaths().forEach(this::evict);
+    }
+}
@@ -0,0 +1,173 @@
+package com.goatyang.cmbackend.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.goatyang.cmbackend.config.ReadWriteRoutingDataSource;
+import com.goatyang.cmbackend.dto.ArticleCommentGroup;
+import com.goatyang.cmbackend.dto.ArticleCommentSummary;
+import com.goatyang.cmbackend.event.CommentCreatedEvent;
+import com.goatyang.cmbackend.event.CommentDeletedEvent;
+import com.goatyang.cmbackend.event.CommentLikeChangedEvent;
+import com.goatyang.cmbackend.event.CommentVisibilityChangedEvent;
+import com.goatyang.cmbackend.event.CommentsImportedEvent;
+import com.goatyang.cmbackend.event.UserContentDeletedEvent;
+import com.goatyang.cmbackend.repository.CommentRepository;
+import com.goatyang.cmbackend.util.CacheLoads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文章评论版本登记表
+ * 为每篇文章维护一个廉价的版本号（评论数、最新评论时间、点赞版本），
+ * 用于评论列表的 ETag / Last-Modified 条件请求，命中时无需查询和序列化评论列表；
+ * 评论数同时供文章列表页批量查询
+ */
+@Component
+public class ArticleVersionRegistry {
+
+    private final CommentRepository commentRepository;
+    private final AsyncCache<String, ArticleVersion> versions;
+    // 已发出的最晚 Last-Modified（毫秒），全局单调不减，不随版本缓存淘汰而丢失
+    private final AtomicLong lastModifiedClock = new AtomicLong();
+    // 点赞版本号以启动时间为种子全局递增，重启或重新加载后不会与旧版本号重复
+    private final AtomicLong likeVersionSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    public ArticleVersionRegistry(CommentRepository commentRepository,
+                                  @Value("${cmbackend.article-version.maximum-size:10000}") long maximumSize) {
+        this.commentRepository = commentRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .buildAsync();
+    }
+
+    /** 获取文章当前版本，未登记时查询一次评论数与最新评论时间 */
+    public ArticleVersion getVersion(String articlePath) {
+        return CacheLoads.getOrLoad(versions, articlePath, this::load);
+    }
+
+    /**
+     * 批量获取多篇文章的评论数（按传入顺序）
+     * 已登记的文章直接返回，其余文章合并为一条 GROUP BY 查询加载并登记
+     */
+    public Map<String, Long> getCommentCounts(Collection<String> articlePaths) {
+        // 批量加载在调用线程上执行，不持有缓存内部锁
+        Map<String, ArticleVersion> loaded = versions.getAll(articlePaths,
+                (missing, executor) -> CompletableFuture.completedFuture(loadAll(missing))).join();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String articlePath : articlePaths) {
+            counts.put(articlePath, loaded.get(articlePath).commentCount());
+        }
+        return counts;
+    }
+
+    private ArticleVersion load(String articlePath) {
+        ArticleCommentSummary summary = ReadWriteRoutingDataSource.onPrimary(() ->
+                commentRepository.summarizeByArticlePath(articlePath));
+        return newVersion(articlePath, summary.commentCount(), summary.lastCommentAt());
+    }
+
+    private Map<String, ArticleVersion> loadAll(Set<? extends String> articlePaths) {
+        Map<String, ArticleVersion> result = new HashMap<>();
+        List<ArticleCommentGroup> groups = ReadWriteRoutingDataSource.onPrimary(() ->
+                commentRepository.summarizeByArticlePaths(List.copyOf(articlePaths)));
+        for (ArticleCommentGroup group : groups) {
+            result.put(group.articlePath(),
+                    newVersion(group.articlePath(), group.commentCount(), group.lastCommentAt()));
+        }
+        // 没有评论的文章不在分组结果中，同样登记为0条
+        for (String articlePath : articlePaths) {
+            result.computeIfAbsent(articlePath, path -> newVersion(path, 0, null));
+        }
+        return result;
+    }
+
+    private ArticleVersion newVersion(String articlePath, long commentCount, LocalDateTime lastCommentAt) {
+        return new ArticleVersion(commentCount, lastCommentAt,
+                likeVersionSequence.incrementAndGet(), nextLastModified());
+    }
+
+    /**
+     * 新版本的 Last-Modified：当前时间，且不早于已发出的任何 Last-Modified（系统时钟回拨时保持不变）。
+     * 不会晚于当前时间；同一秒内的多次变更由 ETag 区分，条件请求优先比较 If-None-Match
+     */
+    private long nextLastModified() {
+        return lastModifiedClock.accumulateAndGet(System.currentTimeMillis(), Math::max);
+    }
+
+    /**
+     * 评论增删后失效对应文章，下次读取时重新汇总，保证评论数与数据库一致
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        versions.synchronous().invalidate(event.articlePath());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentDeleted(CommentDeletedEvent event) {
+        versions.synchronous().invalidate(event.articlePath());
+    }
+
+    /** 被审核标记的评论不计入评论数，隐藏或恢复展示后同样重新汇总 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentVisibilityChanged(CommentVisibilityChangedEvent event) {
+        versions.synchronous().invalidate(event.articlePath());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserContentDeleted(UserContentDeletedEvent event) {
+        versions.synchronous().invalidateAll(event.articlePaths());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentsImported(CommentsImportedEvent event) {
+        versions.synchronous().invalidateAll(event.articlePaths());
+    }
+
+    /** 点赞状态翻转后递增点赞版本 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentLikeChanged(CommentLikeChangedEvent event) {
+        versions.synchronous().asMap().computeIfPresent(event.articlePath(),
+                (path, version) -> version.withLikeVersion(likeVersionSequence.incrementAndGet(),
+                        nextLastModified()));
+    }
+
+    /**
+     * 文章评论版本
+     *
+     * @param commentCount  评论数
+     * @param lastCommentAt 最新评论时间，没有评论时为null
+     * @param likeVersion   点赞版本，任一评论点赞状态变化时递增
+     * @param lastModified  该版本确立的时间（毫秒），单调不减且不晚于当前时间，用作 Last-Modified
+     */
+    public record ArticleVersion(long commentCount, LocalDateTime lastCommentAt,
+                                 long likeVersion, long lastModified) {
+
+        ArticleVersion withLikeVersion(long likeVersion, long lastModified) {
+            return new ArticleVersion(commentCount, lastCommentAt, likeVersion, lastModified);
+        }
+
+        /**
+         * 生成弱ETag
+         *
+         * @param variant 同一版本下不同响应的区分标识（如分页参数）
+         */
+        public String etag(String variant) {
+            long lastCommentMillis = lastCommentAt == null ? 0
+                    : lastCommentAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return "W/\"" + Long.toHexString(commentCount) + '-' + Long.toHexString(lastCommentMillis) + '-'
+                    + Long.toHexString(likeVersion) + '-' + Integer.toHexString(variant.hashCode()) + '"';
+        }
+    }
+}
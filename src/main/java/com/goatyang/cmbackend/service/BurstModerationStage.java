@@ -0,0 +1,41 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.config.ModerationProperties;
+import com.goatyang.cmbackend.dto.ModerationTask;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 单用户突发检测
+ * 统计同一用户在窗口内发布的评论数，超过阈值后的评论被标记
+ */
+@Component
+@Order(3)
+public class BurstModerationStage implements ModerationStage {
+
+    private final int threshold;
+    private final Duration window;
+    private final WindowedOccurrences<Long> occurrences;
+
+    public BurstModerationStage(ModerationProperties properties) {
+        this.threshold = properties.burst().threshold();
+        this.window = properties.burst().window();
+        this.occurrences = new WindowedOccurrences<>(properties.burst().window(), 100_000);
+    }
+
+    @Override
+    public String name() {
+        return "burst";
+    }
+
+    @Override
+    public String check(ModerationTask task) {
+        if (threshold <= 0) {
+            return null;
+        }
+        int count = occurrences.record(task.userId(), task.commentId(), task.createdAt());
+        return count > threshold ? window + " 内发布了 " + count + " 条评论" : null;
+    }
+}
@@ -0,0 +1,147 @@
+package com.goatyang.cmbackend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.goatyang.cmbackend.dto.CommentExportRow;
+import com.goatyang.cmbackend.repository.CommentRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * 评论导出服务
+ * 从数据库流式读取评论并逐行写入响应输出流，不在内存中聚合整张表
+ */
+@Service
+@Timed(value = "cmbackend.service", histogram = true)
+@RequiredArgsConstructor
+public class CommentExportService {
+
+    /** 每写出多少行刷新一次输出流，让客户端持续收到数据 */
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final CommentRepository commentRepository;
+    private final LikeCountAggregator likeCountAggregator;
+    private final ObjectMapper objectMapper;
+
+    public enum ExportFormat {
+        NDJSON("application/x-ndjson;charset=UTF-8", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static ExportFormat parse(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支持的导出格式: " + format);
+            }
+        }
+    }
+
+    /**
+     * 导出全部评论
+     *
+     * @return 导出的行数
+     */
+    @Transactional(readOnly = true)
+    public long exportAll(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<CommentExportRow> rows = commentRepository.streamAllForExport()) {
+            Iterator<CommentExportRow> iterator = rows
+                    .map(this::withPendingLikes)
+                    .iterator();
+            return format == ExportFormat.NDJSON ? writeNdjson(iterator, out) : writeCsv(iterator, out);
+        }
+    }
+
+    private long writeNdjson(Iterator<CommentExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        // 关闭每写一个值就flush的默认行为，由缓冲区按批刷新
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            while (rows.hasNext()) {
+                writer.writeValue(generator, rows.next());
+                generator.writeRaw('\n');
+                if (++count % FLUSH_EVERY_ROWS == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<CommentExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // UTF-8 BOM，方便Excel正确识别中文
+        writer.write('\uFEFF');
+        writer.write("commentId,articlePath,userId,username,content,likeCount,createdAt\n");
+        while (rows.hasNext()) {
+            CommentExportRow row = rows.next();
+            writer.write(String.valueOf(row.commentId()));
+            writer.write(',');
+            writer.write(csvField(row.articlePath()));
+            writer.write(',');
+            writer.write(String.valueOf(row.userId()));
+            writer.write(',');
+            writer.write(csvField(row.username()));
+            writer.write(',');
+            writer.write(csvField(row.content()));
+            writer.write(',');
+            writer.write(String.valueOf(row.likeCount()));
+            writer.write(',');
+            writer.write(row.createdAt() == null ? "" : row.createdAt().toString());
+            writer.write('\n');
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private CommentExportRow withPendingLikes(CommentExportRow row) {
+        long delta = likeCountAggregator.pendingDelta(row.commentId());
+        return delta == 0 ? row : row.withLikeCount(Math.max(row.likeCount() + delta, 0));
+    }
+
+    /** CSV字段转义：包含逗号、引号或换行时加引号，内部引号双写 */
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,75 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.model.Comment;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 评论ID号段分配器
+ * 沿用 id_generator 表和 pooled 优化器的号段约定：读到的 next_val 是号段上界，一次取
+ * Comment.ID_ALLOCATION_SIZE 个ID，与仍在运行旧版本的实例交替取号也不会重复。
+ * 号段通过独立的小连接池获取：取号时调用方的事务已占用一个主库连接，若在主库连接池中取号，
+ * 连接池被占满时持有连接的事务都排在取号锁后面，而取号又等不到连接，所有写评论的请求会一起卡到连接超时
+ */
+@Component
+public class CommentIdAllocator {
+
+    private static final String SEQUENCE_NAME = "comment";
+    private static final int POOL_SIZE = 2;
+
+    private static final String SELECT_SQL = "SELECT next_val FROM id_generator WHERE sequence_name = ? FOR UPDATE";
+    private static final String UPDATE_SQL = "UPDATE id_generator SET next_val = ? WHERE sequence_name = ?";
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock lock = new ReentrantLock();
+    // 当前号段中下一个可用ID与号段上界，next > hi 表示号段已用完
+    private long next = 1;
+    private long hi = 0;
+
+    public CommentIdAllocator(DataSourceProperties properties) {
+        this.dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        this.dataSource.setPoolName("comment-id");
+        this.dataSource.setMaximumPoolSize(POOL_SIZE);
+        this.dataSource.setMinimumIdle(0);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /** 分配一个评论ID */
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next > hi) {
+                hi = fetchBlock();
+                next = hi - Comment.ID_ALLOCATION_SIZE + 1;
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 在独立事务中把 next_val 推进一个号段，返回推进前的值（本号段上界） */
+    private long fetchBlock() {
+        Long upper = transactionTemplate.execute(status -> {
+            Long value = jdbcTemplate.queryForObject(SELECT_SQL, Long.class, SEQUENCE_NAME);
+            jdbcTemplate.update(UPDATE_SQL, value + Comment.ID_ALLOCATION_SIZE, SEQUENCE_NAME);
+            return value;
+        });
+        return upper;
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,284 @@
+package com.goatyang.cmbackend.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goatyang.cmbackend.dto.CommentImportRecord;
+import com.goatyang.cmbackend.dto.CommentImportReport;
+import com.goatyang.cmbackend.event.CommentsImportedEvent;
+import com.goatyang.cmbackend.model.Comment;
+import com.goatyang.cmbackend.model.ModerationStatus;
+import com.goatyang.cmbackend.model.User;
+import com.goatyang.cmbackend.repository.UserRepository;
+import com.goatyang.cmbackend.util.CommentPaths;
+import com.goatyang.cmbackend.util.ContentFingerprint;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.goatyang.cmbackend.dto.CommentImportRecord.TYPE_COMMENT;
+import static com.goatyang.cmbackend.dto.CommentImportRecord.TYPE_LIKE;
+
+/**
+ * 评论批量导入服务（用于从旧博客平台迁移历史评论）
+ * 逐条读取导入记录，每 chunk-size 条记录一个事务：评论经Hibernate批量插入（按号段分配ID），
+ * 回复数、点赞与点赞数用JDBC批处理写入，每块提交后清空持久化上下文，内存占用与导入总量基本无关。
+ * 旧平台评论标识到新评论ID的映射与已导入的点赞常驻内存，用于解析回复关系和去重。
+ * 出错时抛出IllegalArgumentException并停止导入，已提交的分块保留
+ */
+@Slf4j
+@Service
+@Timed(value = "cmbackend.service", histogram = true)
+public class CommentImportService {
+
+    private static final String REPLY_COUNT_SQL =
+            "UPDATE comment SET reply_count = reply_count + ? WHERE comment_id = ?";
+    private static final String LIKE_INSERT_SQL =
+            "INSERT INTO comment_like (comment_id, user_id, is_canceled, created_at) VALUES (?, ?, false, ?)";
+    private static final String LIKE_COUNT_SQL =
+            "UPDATE comment SET like_count = like_count + ? WHERE comment_id = ?";
+
+    private final EntityManager entityManager;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public CommentImportService(EntityManager entityManager,
+                                UserRepository userRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${cmbackend.import.chunk-size:1000}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /** 导入NDJSON格式的评论与点赞，每行一条 CommentImportRecord */
+    public CommentImportReport importNdjson(InputStream in) throws IOException {
+        try (MappingIterator<CommentImportRecord> records =
+                     objectMapper.readerFor(CommentImportRecord.class).readValues(in)) {
+            return importRecords(records);
+        }
+    }
+
+    /** 导入评论与点赞，回复与点赞引用的评论必须出现在它们之前 */
+    public CommentImportReport importRecords(Iterator<CommentImportRecord> records) {
+        long begin = System.nanoTime();
+        ImportRun run = new ImportRun();
+        List<CommentImportRecord> chunk = new ArrayList<>(chunkSize);
+        while (true) {
+            try {
+                if (!records.hasNext()) {
+                    break;
+                }
+                chunk.add(records.next());
+            } catch (RuntimeException e) {
+                // 解析失败（如JSON格式错误），MappingIterator 包装为运行时异常
+                throw run.error(run.committed + chunk.size() + 1, "无法解析: " + e.getMessage());
+            }
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, run);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, run);
+        }
+
+        long millis = Math.max((System.nanoTime() - begin) / 1_000_000, 1);
+        long rows = run.comments + run.likes.size();
+        CommentImportReport report = new CommentImportReport(run.comments, run.likes.size(), run.usersCreated,
+                millis, rows * 1000 / millis);
+        log.info("评论导入完成: {}", report);
+        return report;
+    }
+
+    /** 在一个事务内导入一块记录 */
+    private void importChunk(List<CommentImportRecord> chunk, ImportRun run) {
+        transactionTemplate.executeWithoutResult(status -> {
+            resolveUsers(chunk, run);
+
+            Set<String> articlePaths = new HashSet<>();
+            // 祖先评论ID -> 本块新增的回复数；评论ID -> 本块新增的点赞数
+            Map<Long, Long> replyDeltas = new HashMap<>();
+            Map<Long, Long> likeDeltas = new HashMap<>();
+            List<Object[]> likeRows = new ArrayList<>();
+            List<Long> commentIds = new ArrayList<>();
+            long recordNo = run.committed;
+            for (CommentImportRecord record : chunk) {
+                recordNo++;
+                if (TYPE_COMMENT.equals(record.type())) {
+                    ImportedComment comment = persistComment(record, run, recordNo);
+                    CommentPaths.ancestorIds(comment.path()).forEach(id -> replyDeltas.merge(id, 1L, Long::sum));
+                    articlePaths.add(comment.articlePath());
+                    commentIds.add(comment.commentId());
+                } else if (TYPE_LIKE.equals(record.type())) {
+                    ImportedComment comment = run.resolve(record.commentRef(), recordNo);
+                    Long userId = run.userIds.get(record.githubId());
+                    if (run.likes.add(new LikeKey(comment.commentId(), userId))) {
+                        likeRows.add(new Object[]{comment.commentId(), userId, timestamp(record.createdAt())});
+                        likeDeltas.merge(comment.commentId(), 1L, Long::sum);
+                        articlePaths.add(comment.articlePath());
+                    }
+                } else {
+                    throw run.error(recordNo, "未知的记录类型: " + record.type());
+                }
+            }
+
+            // 先把本块评论批量写入，再更新它们的回复数与点赞数
+            entityManager.flush();
+            entityManager.clear();
+            jdbcTemplate.batchUpdate(REPLY_COUNT_SQL, deltaRows(replyDeltas));
+            jdbcTemplate.batchUpdate(LIKE_INSERT_SQL, likeRows);
+            jdbcTemplate.batchUpdate(LIKE_COUNT_SQL, deltaRows(likeDeltas));
+
+            run.comments += commentIds.size();
+            eventPublisher.publishEvent(new CommentsImportedEvent(commentIds, articlePaths));
+        });
+        run.committed += chunk.size();
+    }
+
+    private ImportedComment persistComment(CommentImportRecord record, ImportRun run, long recordNo) {
+        if (isBlank(record.articlePath()) || isBlank(record.content())) {
+            throw run.error(recordNo, "评论缺少 articlePath 或 content");
+        }
+        if (record.ref() != null && run.refs.containsKey(record.ref())) {
+            throw run.error(recordNo, "重复的评论标识: " + record.ref());
+        }
+
+        Comment comment = new Comment();
+        comment.setUser(entityManager.getReference(User.class, run.userIds.get(record.githubId())));
+        comment.setArticlePath(record.articlePath());
+        comment.setContent(record.content());
+        comment.setFingerprint(ContentFingerprint.of(record.content()));
+        comment.setLikeCount(0L);
+        comment.setCreatedAt(record.createdAt());
+        // 历史评论已在旧平台审核过，不进入审核流水线
+        comment.setModerationStatus(ModerationStatus.APPROVED);
+        if (record.parentRef() != null) {
+            ImportedComment parent = run.resolve(record.parentRef(), recordNo);
+            if (!parent.articlePath().equals(record.articlePath())) {
+                throw run.error(recordNo, "回复的评论不属于该文章: " + record.parentRef());
+            }
+            CommentService.linkToParent(comment, parent.commentId(), parent.path());
+        }
+        // persist时即分配ID，INSERT推迟到flush时批量执行
+        entityManager.persist(comment);
+
+        ImportedComment imported = new ImportedComment(comment.getCommentId(), comment.getArticlePath(),
+                comment.getPath());
+        if (record.ref() != null) {
+            run.refs.put(record.ref(), imported);
+        }
+        return imported;
+    }
+
+    /** 按GitHub ID匹配本地用户，本块中首次出现且不存在的用户按记录中的资料创建 */
+    private void resolveUsers(List<CommentImportRecord> chunk, ImportRun run) {
+        Map<Long, CommentImportRecord> unknown = new LinkedHashMap<>();
+        long recordNo = run.committed;
+        for (CommentImportRecord record : chunk) {
+            recordNo++;
+            if (record.githubId() == null) {
+                throw run.error(recordNo, "缺少 githubId");
+            }
+            if (!run.userIds.containsKey(record.githubId())) {
+                unknown.putIfAbsent(record.githubId(), record);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return;
+        }
+        for (User user : userRepository.findByGithubIdIn(unknown.keySet())) {
+            run.userIds.put(user.getGithubId(), user.getId());
+            unknown.remove(user.getGithubId());
+        }
+        // 新用户数量相对评论很少，逐条插入（用户表仍为自增主键）
+        for (CommentImportRecord record : unknown.values()) {
+            if (isBlank(record.username())) {
+                throw run.error(run.committed + chunk.indexOf(record) + 1,
+                        "用户不存在且缺少 username: githubId=" + record.githubId());
+            }
+            User user = new User();
+            user.setGithubId(record.githubId());
+            user.setUsername(record.username());
+            user.setAvatarUrl(record.avatarUrl());
+            run.userIds.put(record.githubId(), userRepository.save(user).getId());
+            run.usersCreated++;
+        }
+    }
+
+    private static List<Object[]> deltaRows(Map<Long, Long> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((commentId, delta) -> rows.add(new Object[]{delta, commentId}));
+        return rows;
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return Timestamp.valueOf(time != null ? time : LocalDateTime.now());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private record ImportedComment(Long commentId, String articlePath, String path) {
+    }
+
+    private record LikeKey(Long commentId, Long userId) {
+    }
+
+    /** 一次导入的状态，跨分块保留 */
+    private static final class ImportRun {
+
+        // GitHub ID -> 本地用户ID
+        final Map<Long, Long> userIds = new HashMap<>();
+        // 旧平台评论标识 -> 新评论
+        final Map<String, ImportedComment> refs = new HashMap<>();
+        final Set<LikeKey> likes = new HashSet<>();
+        long comments;
+        long usersCreated;
+        // 已提交的记录数
+        long committed;
+
+        ImportedComment resolve(String ref, long recordNo) {
+            ImportedComment comment = ref == null ? null : refs.get(ref);
+            if (comment == null) {
+                throw error(recordNo, "引用的评论不存在或出现在该记录之后: " + ref);
+            }
+            return comment;
+        }
+
+        IllegalArgumentException error(long recordNo, String message) {
+            return new IllegalArgumentException(
+                    "第 " + recordNo + " 条记录: " + message + "（此前 " + committed + " 条记录已导入）");
+        }
+    }
+}
@@ -1,151 +1,146 @@
 package com.goatyang.cmbackend.service;
 
+import com.goatyang.cmbackend.dto.UserIdentity;
+import com.goatyang.cmbackend.event.CommentLikeChangedEvent;
 import com.goatyang.cmbackend.model.Comment;
 import com.goatyang.cmbackend.model.CommentLike;
 import com.goatyang.cmbackend.model.User;
 import com.goatyang.cmbackend.repository.CommentLikeRepository;
 import com.goatyang.cmbackend.repository.CommentRepository;
 import com.goatyang.cmbackend.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
+@Timed(value = "cmbackend.service", histogram = true)
 public class CommentLikeService {
 
+    /** 批量查询点赞状态时一次允许的最大评论数 */
+    private static final int MAX_LIKED_LOOKUP_SIZE = 500;
+
     private final CommentLikeRepository commentLikeRepository;
     private final CommentRepository commentRepository;
     private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
+    private final LikeCountAggregator likeCountAggregator;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public CommentLikeService(CommentLikeRepository commentLikeRepository,
                               CommentRepository commentRepository,
-                              UserRepository userRepository) {
+                              UserRepository userRepository,
+                              UserIdentityCache userIdentityCache,
+                              LikeCountAggregator likeCountAggregator,
+                              ApplicationEventPublisher eventPublisher) {
         this.commentLikeRepository = commentLikeRepository;
         this.commentRepository = commentRepository;
         this.userRepository = userRepository;
+        this.userIdentityCache = userIdentityCache;
+        this.likeCountAggregator = likeCountAggregator;
+        this.eventPublisher = eventPublisher;
     }
 
-    /** 点赞评论 */
+    /** 点赞评论（幂等：重复点赞不会重复计数） */
     @Transactional
     public Map<String, Object> likeComment(Long userId, Long commentId) {
-        User user = userRepository.findByGithubId(userId)
-                .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
+        return setLiked(userId, commentId, true);
+    }
+
+    /** 取消点赞（幂等：未点赞或已取消时不会重复扣减） */
+    @Transactional
+    public Map<String, Object> unlikeComment(Long userId, Long commentId) {
+        return setLiked(userId, commentId, false);
+    }
+
+    /**
+     * 设置点赞状态
+     * 依赖 (comment_id, user_id) 唯一索引：点赞先 INSERT IGNORE，已有记录再条件UPDATE；
+     * 只有状态真正翻转时才修改点赞数
+     */
+    private Map<String, Object> setLiked(Long userId, Long commentId, boolean liked) {
+        UserIdentity user = userIdentityCache.require(userId);
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new IllegalArgumentException("评论不存在"));
 
-        CommentLike like = new CommentLike();
-        like.setUser(user);
-        like.setComment(comment);
-        like.setIsCanceled(false);
-        // 评论总点赞数+1
-        commentRepository.incrementLikeCount(commentId);
-        commentLikeRepository.save(like);
+        boolean flipped;
+        if (liked) {
+            flipped = commentLikeRepository.insertIfAbsent(commentId, user.id(), LocalDateTime.now()) == 1
+                    || commentLikeRepository.updateCanceledIfChanged(commentId, user.id(), false) == 1;
+        } else {
+            flipped = commentLikeRepository.updateCanceledIfChanged(commentId, user.id(), true) == 1;
+        }
+
+        long likeCount = currentLikeCount(comment);
+        if (flipped) {
+            // 评论总点赞数±1：事务提交后由 LikeCountAggregator 监听事件计入增量并批量写回，
+            // 回滚的点赞不会留下增量
+            long delta = liked ? 1 : -1;
+            likeCount = Math.max(likeCount + delta, 0);
+            // 作者只取外键ID，不会初始化用户代理
+            eventPublisher.publishEvent(new CommentLikeChangedEvent(commentId, comment.getArticlePath(),
+                    user.id(), comment.getUser().getId(), delta, likeCount, comment.getCreatedAt()));
+        }
 
-        return buildLikeInfo(userId, commentId);
+        return buildLikeInfo(commentId, likeCount, liked);
     }
 
-    /** 取消点赞 */
-//    @Transactional
-//    public Map<String, Object> unlikeComment(Long userId, Long commentId) {
-//        CommentLike like = commentLikeRepository.findByCommentIdAndUserIdWithFetch(commentId, userId)
-//                .orElseThrow(() -> new IllegalArgumentException("点赞记录不存在"));
-//
-//        if (like.getIsCanceled()) {
-//            throw new IllegalArgumentException("该点赞已取消");
-//        }
-//
-//        like.setIsCanceled(true);
-//        // 评论总数-1
-//        commentRepository.decrementLikeCount(commentId);
-//        commentLikeRepository.save(like);
-//
-//        return buildLikeInfo(userId, commentId);
-//    }
+    /**
+     * 批量查询用户点赞过的评论ID
+     * 按文章路径或评论ID列表过滤，一次索引查询只返回ID，供前端合并到评论列表
+     */
+    @Transactional(readOnly = true)
+    public Set<Long> getLikedCommentIds(Long userId, String articlePath, List<Long> commentIds) {
+        UserIdentity user = userIdentityCache.require(userId);
+
+        List<Long> liked;
+        if (commentIds != null && !commentIds.isEmpty()) {
+            if (commentIds.size() > MAX_LIKED_LOOKUP_SIZE) {
+                throw new IllegalArgumentException("一次最多查询 " + MAX_LIKED_LOOKUP_SIZE + " 条评论");
+            }
+            liked = commentLikeRepository.findLikedCommentIdsIn(user.id(), commentIds);
+        } else if (articlePath != null && !articlePath.isEmpty()) {
+            liked = commentLikeRepository.findLikedCommentIdsByArticlePath(user.id(), articlePath);
+        } else {
+            throw new IllegalArgumentException("文章路径和评论ID不能同时为空");
+        }
+        return new HashSet<>(liked);
+    }
 
     /** 获取某评论的所有点赞记录 */
+    @Transactional(readOnly = true)
     public List<CommentLike> getLikesByCommentId(Long commentId) {
         return commentLikeRepository.findValidLikesByCommentIdWithUser(commentId);
     }
 
     /** 获取某用户的所有点赞记录 */
+    @Transactional(readOnly = true)
     public List<CommentLike> getLikesByUsername(String username) {
         Optional<User> user = userRepository.findByUsername(username);
         Long userId = user.map(User::getId).orElse(null);
         return commentLikeRepository.findByUserIdWithCommentAndUsers(userId);
     }
 
-    /** 删除某用户的所有点赞记录 */
-    @Transactional
-    public Map<String, Object> deleteAllLikesByUserId(Long userId) {
-        List<CommentLike> likes = commentLikeRepository.findByUserIdWithCommentAndUsers(userId);
-
-        int deletedCount = 0;
-        if (!likes.isEmpty()) {
-            // 对于每条有效的点赞记录，减少对应评论的点赞数
-            for (CommentLike like : likes) {
-//                if (!like.getIsCanceled()) {
-                    commentRepository.decrementLikeCount(like.getComment().getCommentId());
-//                }
-            }
-            commentLikeRepository.deleteAll(likes);
-            deletedCount = likes.size();
-        }
-
-        // 统一返回格式
-        Map<String, Object> result = new HashMap<>();
-        result.put("userId", userId);
-        result.put("deletedCount", deletedCount);
-        result.put("message", deletedCount > 0 ? "删除成功" : "没有找到点赞记录");
-        return result;
-    }
-
-
-    /** 删除某评论的所有点赞记录 */
-    @Transactional
-    public Map<String, Object> deleteAllLikesByCommentId(Long commentId) {
-        List<CommentLike> likes = commentLikeRepository.findValidLikesByCommentIdWithUser(commentId);
-
-        int deletedCount = 0;
-        if (!likes.isEmpty()) {
-            // 计算有效的点赞数量并重置评论的点赞数为0
-            long validLikeCount = likes.stream().filter(like -> !like.getIsCanceled()).count();
-            if (validLikeCount > 0) {
-                // 直接将点赞数设置为0，比多次减1更高效
-                commentRepository.resetLikeCount(commentId);
-            }
-
-            commentLikeRepository.deleteAll(likes);
-            deletedCount = likes.size();
-        }
-
-        // 统一返回格式
-        Map<String, Object> result = new HashMap<>();
-        result.put("commentId", commentId);
-        result.put("deletedCount", deletedCount);
-        result.put("message", deletedCount > 0 ? "删除成功" : "该评论没有点赞记录");
-        return result;
+    /** 评论当前点赞数：数据库中的值叠加未写回的增量 */
+    private long currentLikeCount(Comment comment) {
+        return Math.max(comment.getLikeCount() + likeCountAggregator.pendingDelta(comment.getCommentId()), 0);
     }
 
-
-    /** 封装点赞信息 */
-    private Map<String, Object> buildLikeInfo(Long userId, Long commentId) {
-        // 从评论实体中获取点赞数，而不是通过计数查询，更高效
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new IllegalArgumentException("评论不存在"));
-
-        boolean liked = commentLikeRepository.findByCommentIdAndUserIdWithFetch(commentId, userId)
-                .map(l -> !l.getIsCanceled())
-                .orElse(false);
-
+    /** 封装点赞信息（点赞数取自评论实体并叠加未写回的增量，而不是通过计数查询，更高效） */
+    private Map<String, Object> buildLikeInfo(Long commentId, long likeCount, boolean liked) {
         Map<String, Object> result = new HashMap<>();
         result.put("commentId", commentId);
-        result.put("likeCount", comment.getLikeCount());
+        result.put("likeCount", likeCount);
         result.put("liked", liked);
         return result;
     }
@@ -0,0 +1,77 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.event.CommentCreatedEvent;
+import com.goatyang.cmbackend.event.CommentDeletedEvent;
+import com.goatyang.cmbackend.event.CommentLikeChangedEvent;
+import com.goatyang.cmbackend.event.CommentsImportedEvent;
+import com.goatyang.cmbackend.event.UserContentDeletedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 评论与点赞业务指标
+ * 根据事务提交后的领域事件计数，回滚的操作不计入
+ */
+@Component
+public class CommentMetrics {
+
+    private final Counter commentsCreated;
+    private final Counter commentsDeleted;
+    private final Counter commentsImported;
+    private final Counter likes;
+    private final Counter unlikes;
+
+    public CommentMetrics(MeterRegistry meterRegistry, LikeCountAggregator likeCountAggregator) {
+        this.commentsCreated = Counter.builder("cmbackend.comments")
+                .description("评论创建/删除/导入数（删除含用户级联删除）")
+                .tag("action", "create")
+                .register(meterRegistry);
+        this.commentsDeleted = Counter.builder("cmbackend.comments")
+                .description("评论创建/删除/导入数（删除含用户级联删除）")
+                .tag("action", "delete")
+                .register(meterRegistry);
+        this.commentsImported = Counter.builder("cmbackend.comments")
+                .description("评论创建/删除/导入数（删除含用户级联删除）")
+                .tag("action", "import")
+                .register(meterRegistry);
+        this.likes = Counter.builder("cmbackend.comment.likes")
+                .description("点赞状态翻转次数")
+                .tag("action", "like")
+                .register(meterRegistry);
+        this.unlikes = Counter.builder("cmbackend.comment.likes")
+                .description("点赞状态翻转次数")
+                .tag("action", "unlike")
+                .register(meterRegistry);
+        Gauge.builder("cmbackend.likes.pending.comments", likeCountAggregator, LikeCountAggregator::pendingComments)
+                .description("点赞数尚未写回数据库的评论数")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        commentsCreated.increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentDeleted(CommentDeletedEvent event) {
+        commentsDeleted.increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserContentDeleted(UserContentDeletedEvent event) {
+        commentsDeleted.increment(event.commentIds().size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentsImported(CommentsImportedEvent event) {
+        commentsImported.increment(event.commentIds().size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentLikeChanged(CommentLikeChangedEvent event) {
+        (event.delta() > 0 ? likes : unlikes).increment();
+    }
+}
@@ -0,0 +1,348 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.dto.CommentText;
+import com.goatyang.cmbackend.dto.PageResult;
+import com.goatyang.cmbackend.event.CommentCreatedEvent;
+import com.goatyang.cmbackend.event.CommentDeletedEvent;
+import com.goatyang.cmbackend.event.CommentsImportedEvent;
+import com.goatyang.cmbackend.event.UserContentDeletedEvent;
+import com.goatyang.cmbackend.model.Comment;
+import com.goatyang.cmbackend.repository.CommentRepository;
+import com.goatyang.cmbackend.util.CommentTokenizer;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 评论全文检索（进程内倒排索引）
+ * 词项 -> 按文档序号递增的倒排列表，查询对全部词项的倒排列表求交集，耗时只与命中的倒排列表长度有关，与评论表大小无关。
+ * 分词规则见 CommentTokenizer，中文按二元组切分，索引中另有单字一元组。
+ * 索引由评论创建、删除、导入事件增量维护；启动后与每天定时在后台从数据库全量重建（同时清理已删除评论占用的空间），
+ * 重建期间查询使用旧索引，期间的增量变化在切换前重放到新索引上。
+ * 每个实例各自维护一份索引，只能看到本实例发布的增量事件，其他实例写入的评论在下一次重建后可搜到
+ */
+@Slf4j
+@Service
+@Timed(value = "cmbackend.service", histogram = true)
+public class CommentSearchService {
+
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor taskExecutor;
+    private final boolean buildOnStartup;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // 以下字段由 lock 保护
+    private Index index = new Index();
+    private boolean ready;
+    private final List<Consumer<Index>> pendingChanges = new ArrayList<>();
+    private long lastRebuildMillis = -1;
+
+    public CommentSearchService(CommentRepository commentRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                                @Value("${cmbackend.comment-search.build-on-startup:true}") boolean buildOnStartup) {
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.buildOnStartup = buildOnStartup;
+    }
+
+    /**
+     * 搜索评论正文，按评论加入索引的顺序倒序（新评论在前）分页
+     * 查询中的全部词项都出现在评论中才算命中，total 为精确命中数
+     */
+    public PageResult<Comment> search(String query, int page, int size) {
+        Set<String> terms = CommentTokenizer.terms(query);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("搜索词不能为空");
+        }
+        int pageSize = Math.max(1, Math.min(size, CommentService.MAX_SEARCH_PAGE_SIZE));
+        int pageNumber = Math.max(page, 0);
+
+        Hits hits;
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                throw new IllegalArgumentException("评论搜索索引正在构建，请稍后再试");
+            }
+            hits = index.search(terms, (long) pageNumber * pageSize, pageSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Comment> items = new ArrayList<>(hits.commentIds().size());
+        if (!hits.commentIds().isEmpty()) {
+            Map<Long, Comment> comments = new HashMap<>();
+            commentRepository.findWithUserByIds(hits.commentIds()).forEach(c -> comments.put(c.getCommentId(), c));
+            // 按索引顺序返回；已从数据库删除但事件尚未到达的评论直接跳过
+            hits.commentIds().stream().map(comments::get).filter(c -> c != null).forEach(items::add);
+        }
+        boolean hasMore = (long) (pageNumber + 1) * pageSize < hits.total();
+        return new PageResult<>(items, pageNumber, pageSize, hasMore, hits.total());
+    }
+
+    /** 启动后在后台构建索引 */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (buildOnStartup) {
+            rebuildAsync();
+        }
+    }
+
+    /** 每天定时重建，回收已删除评论占用的空间并纳入其他实例写入的评论 */
+    @Scheduled(cron = "${cmbackend.comment-search.rebuild-cron:0 30 4 * * *}")
+    public void scheduledRebuild() {
+        rebuildAsync();
+    }
+
+    /**
+     * 在后台从数据库重建索引
+     *
+     * @return 是否已提交（已有重建在进行时返回false）
+     */
+    public boolean rebuildAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            taskExecutor.execute(this::rebuild);
+        } catch (RuntimeException e) {
+            rebuilding.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    /** 索引统计 */
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("rebuilding", rebuilding.get());
+            stats.put("documents", index.documentCount());
+            stats.put("deletedDocuments", index.deletedCount);
+            stats.put("terms", index.postings.size());
+            stats.put("postings", index.postingCount);
+            stats.put("lastRebuildMillis", lastRebuildMillis);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        if (event.comment() != null) {
+            String content = event.comment().comment().content();
+            apply(index -> index.add(event.commentId(), content));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentDeleted(CommentDeletedEvent event) {
+        apply(index -> index.remove(event.commentId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserContentDeleted(UserContentDeletedEvent event) {
+        apply(index -> event.commentIds().forEach(index::remove));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentsImported(CommentsImportedEvent event) {
+        if (event.commentIds().isEmpty()) {
+            return;
+        }
+        List<CommentText> texts = commentRepository.findTextsByIds(event.commentIds());
+        texts.sort(Comparator.comparing(CommentText::commentId));
+        apply(index -> texts.forEach(text -> index.add(text.commentId(), text.content())));
+    }
+
+    /** 把增量变化应用到当前索引；重建期间同时记录下来，切换前重放到新索引 */
+    private void apply(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (rebuilding.get()) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuild() {
+        long begin = System.nanoTime();
+        try {
+            Index rebuilt = new Index();
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<CommentText> texts = commentRepository.streamAllTexts()) {
+                    texts.forEach(text -> rebuilt.add(text.commentId(), text.content()));
+                }
+            });
+            lock.writeLock().lock();
+            try {
+                pendingChanges.forEach(change -> change.accept(rebuilt));
+                pendingChanges.clear();
+                rebuilt.trim();
+                index = rebuilt;
+                ready = true;
+                lastRebuildMillis = (System.nanoTime() - begin) / 1_000_000;
+                rebuilding.set(false);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("评论搜索索引重建完成: documents={}, terms={}, millis={}",
+                    rebuilt.documentCount(), rebuilt.postings.size(), lastRebuildMillis);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges.clear();
+                rebuilding.set(false);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.warn("评论搜索索引重建失败", e);
+        }
+    }
+
+    /** 一页命中结果 */
+    record Hits(List<Long> commentIds, long total) {
+    }
+
+    /**
+     * 倒排索引，非线程安全，由外层读写锁保护
+     * 文档序号按加入顺序递增，每个词项的倒排列表天然有序；删除只做标记，重建时回收
+     */
+    static final class Index {
+
+        private final Map<String, Postings> postings = new HashMap<>();
+        // 评论ID -> 文档序号，用于删除与去重
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private long[] commentIds = new long[1024];
+        private int size;
+        private int deletedCount;
+        private long postingCount;
+
+        void add(Long commentId, String content) {
+            if (ordinals.containsKey(commentId)) {
+                return;
+            }
+            int ordinal = size++;
+            if (ordinal == commentIds.length) {
+                commentIds = Arrays.copyOf(commentIds, commentIds.length * 2);
+            }
+            commentIds[ordinal] = commentId;
+            ordinals.put(commentId, ordinal);
+            for (String term : CommentTokenizer.indexTerms(content)) {
+                postings.computeIfAbsent(term, t -> new Postings()).add(ordinal);
+                postingCount++;
+            }
+        }
+
+        void remove(Long commentId) {
+            Integer ordinal = ordinals.remove(commentId);
+            if (ordinal != null) {
+                deleted.set(ordinal);
+                deletedCount++;
+            }
+        }
+
+        int documentCount() {
+            return size - deletedCount;
+        }
+
+        /** 从最短的倒排列表倒序遍历，在其余列表中二分查找，统计全部命中并截取 [offset, offset + limit) */
+        Hits search(Set<String> terms, long offset, int limit) {
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return new Hits(List.of(), 0);
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            Postings shortest = lists.get(0);
+
+            List<Long> page = new ArrayList<>(limit);
+            long total = 0;
+            // 倒序遍历时其余列表的查找上界只会减小
+            int[] upperBounds = new int[lists.size()];
+            for (int k = 1; k < lists.size(); k++) {
+                upperBounds[k] = lists.get(k).size;
+            }
+            candidates:
+            for (int i = shortest.size - 1; i >= 0; i--) {
+                int ordinal = shortest.values[i];
+                if (deleted.get(ordinal)) {
+                    continue;
+                }
+                for (int k = 1; k < lists.size(); k++) {
+                    Postings list = lists.get(k);
+                    int position = Arrays.binarySearch(list.values, 0, upperBounds[k], ordinal);
+                    upperBounds[k] = position >= 0 ? position : -position - 1;
+                    if (position < 0) {
+                        continue candidates;
+                    }
+                }
+                if (total >= offset && page.size() < limit) {
+                    page.add(commentIds[ordinal]);
+                }
+                total++;
+            }
+            return new Hits(page, total);
+        }
+
+        void trim() {
+            postings.values().forEach(Postings::trim);
+        }
+    }
+
+    /** 递增的文档序号列表 */
+    private static final class Postings {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int ordinal) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = ordinal;
+        }
+
+        void trim() {
+            if (values.length > size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+    }
+}
@@ -1,89 +1,369 @@
 package com.goatyang.cmbackend.service;
 
+import com.goatyang.cmbackend.dto.CommentCursor;
+import com.goatyang.cmbackend.dto.CommentNode;
+import com.goatyang.cmbackend.dto.CommentSearchCriteria;
+import com.goatyang.cmbackend.dto.CommentView;
+import com.goatyang.cmbackend.dto.CursorPage;
+import com.goatyang.cmbackend.dto.PageResult;
+import com.goatyang.cmbackend.dto.UserIdentity;
+import com.goatyang.cmbackend.event.CommentCreatedEvent;
+import com.goatyang.cmbackend.event.CommentDeletedEvent;
+import com.goatyang.cmbackend.event.CommentVisibilityChangedEvent;
 import com.goatyang.cmbackend.model.Comment;
-import com.goatyang.cmbackend.model.User;
+import com.goatyang.cmbackend.model.ModerationStatus;
+import com.goatyang.cmbackend.repository.CommentLikeRepository;
 import com.goatyang.cmbackend.repository.CommentRepository;
+import com.goatyang.cmbackend.repository.CommentSpecifications;
 import com.goatyang.cmbackend.repository.UserRepository;
+import com.goatyang.cmbackend.util.CommentPaths;
+import com.goatyang.cmbackend.util.ContentFingerprint;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @Service
+@Timed(value = "cmbackend.service", histogram = true)
 @RequiredArgsConstructor
 public class CommentService {
 
+    /** 文章评论分页默认条数 */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    /** 文章评论分页最大条数 */
+    public static final int MAX_PAGE_SIZE = 100;
+    /** 管理端评论搜索最大页大小 */
+    public static final int MAX_SEARCH_PAGE_SIZE = 200;
+    /** 楼层分页时每个楼层默认附带的回复数 */
+    public static final int DEFAULT_REPLIES_PER_ROOT = 3;
+    /** 楼层分页时每个楼层最多附带的回复数，其余回复通过回复分页接口加载 */
+    public static final int MAX_REPLIES_PER_ROOT = 20;
+    /** 最大回复层级，回复更深层的评论时挂到其父评论下 */
+    public static final int MAX_REPLY_DEPTH = 8;
+
     private final CommentRepository commentRepository;
+    private final CommentLikeRepository commentLikeRepository;
     private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
+    private final ArticleCommentCache articleCommentCache;
+    private final LikeCountAggregator likeCountAggregator;
+    private final ContentFingerprintService contentFingerprintService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /** 创建评论 */
-    public Comment createComment(Long userId, String articlePath, String content) {
-        // 查找用户并验证用户存在性
-        User user = userRepository.findByGithubId(userId)
-                .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
+    @Transactional
+    public CommentView createComment(Long userId, String articlePath, String content) {
+        return createComment(userId, articlePath, content, null);
+    }
+
+    /**
+     * 创建评论或回复
+     *
+     * @param parentId 被回复的评论ID，为null时创建楼层（顶层评论）
+     */
+    @Transactional
+    public CommentView createComment(Long userId, String articlePath, String content, Long parentId) {
+        // 从身份缓存解析用户并验证用户存在性
+        UserIdentity user = userIdentityCache.require(userId);
 
         // 检查用户是否有评论权限
-        if (!user.getComPermissions()) {
+        if (!user.comPermissions()) {
             throw new AccessDeniedException("当前用户没有评论权限");
         }
 
+        // 按内容指纹索引查找近期的相同或近似评论，超过阈值时拒绝
+        ContentFingerprint fingerprint = ContentFingerprint.of(content);
+        contentFingerprintService.checkDuplicate(fingerprint);
+
         Comment comment = new Comment();
-        comment.setUser(user);
+        // 只需要外键，使用引用代理，不查询用户表
+        comment.setUser(userRepository.getReferenceById(user.id()));
         comment.setArticlePath(articlePath);
         comment.setContent(content);
+        comment.setFingerprint(fingerprint);
         comment.setLikeCount(0L);
+        if (parentId != null) {
+            attachToParent(comment, parentId);
+        }
 
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        List<Long> ancestorIds = CommentPaths.ancestorIds(saved.getPath());
+        if (!ancestorIds.isEmpty()) {
+            commentRepository.incrementReplyCounts(ancestorIds);
+        }
+        CommentView view = new CommentView(saved.getCommentId(), saved.getContent(), saved.getLikeCount(),
+                saved.getCreatedAt(), user.username(), user.avatarUrl());
+        eventPublisher.publishEvent(new CommentCreatedEvent(saved.getCommentId(), user.id(), articlePath,
+                new CommentNode(view, saved.getParentId(), saved.getRootId(), 0, List.of())));
+        return view;
     }
 
-    /** 获取所有评论 */
-    public List<Comment> getAllComments() {
-        return commentRepository.findAllWithUser();
+    /** 设置回复的父评论、楼层与物化路径 */
+    private void attachToParent(Comment reply, Long parentId) {
+        Comment parent = commentRepository.findById(parentId)
+                .orElseThrow(() -> new IllegalArgumentException("回复的评论不存在"));
+        if (!parent.getArticlePath().equals(reply.getArticlePath())) {
+            throw new IllegalArgumentException("回复的评论不属于该文章");
+        }
+        linkToParent(reply, parent.getCommentId(), parent.getPath());
     }
 
-    /** 根据用户ID获取评论 */
-    public List<Comment> getCommentsByUserId(Long userId) {
-        return commentRepository.findByUserId(userId);
+    /** 按父评论的ID与物化路径设置回复的父评论、楼层与路径 */
+    static void linkToParent(Comment reply, Long parentId, String parentPath) {
+        reply.setRootId(CommentPaths.rootId(parentPath, parentId));
+        if (CommentPaths.depth(parentPath) + 1 > MAX_REPLY_DEPTH) {
+            // 超过最大层级，与被回复的评论挂在同一父评论下
+            List<Long> ancestors = CommentPaths.ancestorIds(parentPath);
+            reply.setParentId(ancestors.get(ancestors.size() - 1));
+            reply.setPath(parentPath);
+        } else {
+            reply.setParentId(parentId);
+            reply.setPath(CommentPaths.childPath(parentPath, parentId));
+        }
     }
 
-    /** 根据用户名获取评论 */
-    public List<Comment> getCommentsByUsername(String username){
-        Optional<User> user = userRepository.findByUsername(username);
-        Long userId = user.map(User::getId).orElse(null);
-        return commentRepository.findByUserId(userId);
+    /** 根据文章路径分页获取评论（keyset游标分页） */
+    @Transactional(readOnly = true)
+    public CursorPage<CommentView> getCommentPageByArticlePath(String articlePath, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // 多查一条用于判断是否还有下一页
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        List<CommentView> comments;
+        if (cursor == null || cursor.isEmpty()) {
+            // 第一页走缓存，缓存窗口足够切出任意合法页大小
+            comments = articleCommentCache.getFirstWindow(articlePath, path ->
+                    commentRepository.findFirstPageByArticlePath(path, Limit.of(MAX_PAGE_SIZE + 1)));
+            comments = comments.subList(0, Math.min(comments.size(), pageSize + 1));
+        } else {
+            CommentCursor after = CommentCursor.decode(cursor);
+            comments = commentRepository.findPageByArticlePathAfter(
+                    articlePath, after.createdAt(), after.commentId(), fetchLimit);
+        }
+
+        if (comments.size() <= pageSize) {
+            return new CursorPage<>(withPendingLikes(comments), null);
+        }
+        List<CommentView> page = comments.subList(0, pageSize);
+        CommentView last = page.get(pageSize - 1);
+        return new CursorPage<>(withPendingLikes(page),
+                new CommentCursor(last.createdAt(), last.commentId()).encode());
+    }
+
+    /**
+     * 按楼层分页获取文章评论树（keyset游标分页，游标定位楼层）
+     * 楼层一次查询，各楼层最早的 repliesPerRoot 条回复再一次查询，在内存中按 parentId 组装成树
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CommentNode> getThreadPageByArticlePath(String articlePath, String cursor,
+                                                              int limit, int repliesPerRoot) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        int perRoot = Math.max(0, Math.min(repliesPerRoot, MAX_REPLIES_PER_ROOT));
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        List<CommentNode> roots;
+        if (cursor == null || cursor.isEmpty()) {
+            roots = commentRepository.findFirstRootPageByArticlePath(articlePath, fetchLimit);
+        } else {
+            CommentCursor after = CommentCursor.decode(cursor);
+            roots = commentRepository.findRootPageByArticlePathAfter(
+                    articlePath, after.createdAt(), after.commentId(), fetchLimit);
+        }
+        String nextCursor = null;
+        if (roots.size() > pageSize) {
+            roots = roots.subList(0, pageSize);
+            CommentView last = roots.get(pageSize - 1).comment();
+            nextCursor = new CommentCursor(last.createdAt(), last.commentId()).encode();
+        }
+
+        List<CommentNode> page = withPendingLikesOnNodes(roots);
+        List<Long> rootIds = page.stream()
+                .filter(root -> root.replyCount() > 0)
+                .map(root -> root.comment().commentId())
+                .toList();
+        if (perRoot > 0 && !rootIds.isEmpty()) {
+            attachReplies(page, withPendingLikesOnNodes(commentRepository.findFirstRepliesByRootIds(rootIds, perRoot)));
+        }
+        return new CursorPage<>(page, nextCursor);
     }
 
-    /** 根据文章路径获取评论 */
-    public List<Comment> getCommentsByArticlePath(String articlePath) {
-        return commentRepository.findByArticlePath(articlePath);
+    /**
+     * 分页获取某条评论的全部后代回复（按创建时间正序），组装成以该评论直接回复为顶层的子树；
+     * 父评论不在当前页（或被审核标记而隐藏）的回复也作为顶层返回，前端按 parentId 挂到已加载的节点下
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CommentNode> getReplies(Long commentId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        Comment comment = commentRepository.findById(commentId)
+                .filter(c -> c.getModerationStatus() != ModerationStatus.FLAGGED)
+                .orElseThrow(() -> new IllegalArgumentException("评论不存在"));
+        Long rootId = CommentPaths.rootId(comment.getPath(), commentId);
+        String prefix = CommentPaths.childPath(comment.getPath(), commentId) + "%";
+
+        List<CommentNode> replies;
+        if (cursor == null || cursor.isEmpty()) {
+            replies = commentRepository.findFirstDescendants(rootId, prefix, fetchLimit);
+        } else {
+            CommentCursor after = CommentCursor.decode(cursor);
+            replies = commentRepository.findDescendantsAfter(
+                    rootId, prefix, after.createdAt(), after.commentId(), fetchLimit);
+        }
+        String nextCursor = null;
+        if (replies.size() > pageSize) {
+            replies = replies.subList(0, pageSize);
+            CommentView last = replies.get(pageSize - 1).comment();
+            nextCursor = new CommentCursor(last.createdAt(), last.commentId()).encode();
+        }
+        return new CursorPage<>(attachReplies(new ArrayList<>(), withPendingLikesOnNodes(replies)), nextCursor);
     }
 
-    /** 根据时间范围获取评论 */
-    public List<Comment> getCommentsByCreatedAtBetween(LocalDateTime startTime, LocalDateTime endTime) {
-        return commentRepository.findByCreatedAtBetween(startTime, endTime);
+    /**
+     * 把按创建时间正序排列的回复挂到各自父节点下（O(n)，父评论总是先于回复出现）
+     * 父评论不在结果中时（已删除）挂到所属楼层，仍找不到则追加为顶层节点
+     *
+     * @return 顶层节点列表（即传入的 tops）
+     */
+    private static List<CommentNode> attachReplies(List<CommentNode> tops, List<CommentNode> replies) {
+        Map<Long, CommentNode> nodes = new HashMap<>();
+        tops.forEach(node -> nodes.put(node.comment().commentId(), node));
+        for (CommentNode reply : replies) {
+            CommentNode parent = nodes.get(reply.parentId());
+            if (parent == null) {
+                parent = nodes.get(reply.rootId());
+            }
+            if (parent != null) {
+                parent.replies().add(reply);
+            } else {
+                tops.add(reply);
+            }
+            nodes.put(reply.comment().commentId(), reply);
+        }
+        return tops;
     }
 
-    /** 根据评论id删除评论 */
+    private List<CommentNode> withPendingLikesOnNodes(List<CommentNode> nodes) {
+        List<CommentNode> result = new ArrayList<>(nodes.size());
+        for (CommentNode node : nodes) {
+            CommentView comment = node.comment();
+            long delta = likeCountAggregator.pendingDelta(comment.commentId());
+            result.add(delta == 0 ? node
+                    : node.withComment(comment.withLikeCount(Math.max(comment.likeCount() + delta, 0))));
+        }
+        return result;
+    }
+
+    /** 叠加尚未写回数据库的点赞增量 */
+    private List<CommentView> withPendingLikes(List<CommentView> comments) {
+        List<CommentView> result = new ArrayList<>(comments.size());
+        for (CommentView comment : comments) {
+            long delta = likeCountAggregator.pendingDelta(comment.commentId());
+            result.add(delta == 0 ? comment : comment.withLikeCount(Math.max(comment.likeCount() + delta, 0)));
+        }
+        return result;
+    }
+
+    /**
+     * 管理端评论搜索：组合各项筛选条件，按创建时间或点赞数倒序分页
+     * 默认只多取一条判断是否有下一页，不执行 COUNT(*)；exactCount 为true时才额外计数
+     */
+    @Transactional(readOnly = true)
+    public PageResult<Comment> searchComments(CommentSearchCriteria criteria, SearchSort sort,
+                                              int page, int size, boolean exactCount) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        // 评论ID作为第二排序键，保证同值时翻页顺序稳定
+        Pageable pageable = PageRequest.of(Math.max(page, 0), pageSize,
+                Sort.by(Sort.Order.desc(sort.getProperty()), Sort.Order.desc("commentId")));
+
+        Specification<Comment> spec = CommentSpecifications.matches(criteria);
+        if (exactCount) {
+            Page<Comment> result = commentRepository.findBy(spec, q -> q.project("user").page(pageable));
+            return new PageResult<>(result.getContent(), result.getNumber(), result.getSize(),
+                    result.hasNext(), result.getTotalElements());
+        }
+        Slice<Comment> result = commentRepository.findBy(spec, q -> q.project("user").slice(pageable));
+        return new PageResult<>(result.getContent(), result.getNumber(), result.getSize(),
+                result.hasNext(), null);
+    }
+
+    /** 分页列出被审核流水线标记的评论（管理端），新评论在前 */
+    @Transactional(readOnly = true)
+    public PageResult<Comment> getFlaggedComments(int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        Slice<Comment> result = commentRepository.findByModerationStatus(ModerationStatus.FLAGGED,
+                PageRequest.of(Math.max(page, 0), pageSize, Sort.by(Sort.Order.desc("commentId"))));
+        return new PageResult<>(result.getContent(), result.getNumber(), result.getSize(), result.hasNext(), null);
+    }
+
+    /** 管理员审核通过被标记的评论，评论恢复公开展示 */
     @Transactional
-    public void deleteCommentByCommentId(Long commentId) {
-        if (!commentRepository.existsById(commentId)) {
-            throw new IllegalArgumentException("评论不存在");
+    public void approveFlaggedComment(Long commentId) {
+        Comment comment = commentRepository.findById(commentId)
+                .orElseThrow(() -> new IllegalArgumentException("评论不存在或未被标记"));
+        int updated = commentRepository.updateModerationStatus(
+                commentId, ModerationStatus.FLAGGED, ModerationStatus.APPROVED);
+        if (updated == 0) {
+            throw new IllegalArgumentException("评论不存在或未被标记");
+        }
+        eventPublisher.publishEvent(new CommentVisibilityChangedEvent(commentId, comment.getArticlePath(), true));
+    }
+
+    /** 管理端评论搜索排序字段 */
+    public enum SearchSort {
+        CREATED_AT("createdAt"),
+        LIKE_COUNT("likeCount");
+
+        private final String property;
+
+        SearchSort(String property) {
+            this.property = property;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public static SearchSort parse(String sort) {
+            for (SearchSort value : values()) {
+                if (value.property.equalsIgnoreCase(sort) || value.name().equalsIgnoreCase(sort)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("不支持的排序字段: " + sort);
         }
-        commentRepository.deleteById(commentId);
     }
 
-    /** 根据用户ID删除该用户的所有评论 */
+    /** 根据评论id删除评论，其下全部回复一并删除 */
     @Transactional
-    public void deleteAllCommentsByUserId(Long userId) {
-        // 先检查用户是否存在
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
+    public void deleteCommentByCommentId(Long commentId) {
+        Comment comment = commentRepository.findById(commentId)
+                .orElseThrow(() -> new IllegalArgumentException("评论不存在"));
+        List<Long> commentIds = new ArrayList<>();
+        commentIds.add(commentId);
+        commentIds.addAll(commentRepository.findDescendantIds(CommentPaths.rootId(comment.getPath(), commentId),
+                CommentPaths.childPath(comment.getPath(), commentId) + "%"));
 
-        // 删除该用户的所有评论
-        commentRepository.deleteByUserId(userId);
+        // 先删除这些评论的点赞记录，避免外键约束阻止删除
+        commentLikeRepository.deleteByCommentIds(commentIds);
+        commentRepository.deleteByCommentIds(commentIds);
+        List<Long> ancestorIds = CommentPaths.ancestorIds(comment.getPath());
+        if (!ancestorIds.isEmpty()) {
+            commentRepository.decrementReplyCounts(ancestorIds, commentIds.size());
+        }
+        commentIds.forEach(id -> eventPublisher.publishEvent(new CommentDeletedEvent(id, comment.getArticlePath())));
     }
 }
@@ -0,0 +1,286 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.event.CommentCreatedEvent;
+import com.goatyang.cmbackend.event.CommentLikeChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 评论统计增量聚合器（write-behind）
+ * 监听评论创建与点赞变化事件，在内存中按 文章+日期、用户、日期 累加增量，由定时任务用
+ * INSERT ... ON DUPLICATE KEY UPDATE 批量写入统计表。全站每天一行的 daily_stats 是热点行，
+ * 逐事件更新会让所有写请求在同一行上排队。
+ * 活跃用户按天去重：当天已计入的用户ID保存在内存中，首次出现时活跃数加1；
+ * 集合按需从 user_stats.last_active_date 加载（在累加增量的锁之外查询），重启后不会重复计数。
+ * 删除评论/用户不做增量扣减，进程崩溃时未写入的增量会丢失，都由 CommentStatsService 每晚对账修正
+ */
+@Slf4j
+@Component
+public class CommentStatsAggregator {
+
+    private static final String ARTICLE_DAY_SQL =
+            "INSERT INTO article_daily_stats (article_path, stat_date, comment_count) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE comment_count = comment_count + VALUES(comment_count)";
+    private static final String USER_SQL =
+            "INSERT INTO user_stats (user_id, comment_count, likes_received, last_active_date) " +
+            "VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE comment_count = comment_count + VALUES(comment_count), " +
+            "likes_received = likes_received + VALUES(likes_received), " +
+            "last_active_date = COALESCE(GREATEST(last_active_date, VALUES(last_active_date)), " +
+            "last_active_date, VALUES(last_active_date))";
+    private static final String DAY_SQL =
+            "INSERT INTO daily_stats (stat_date, comment_count, like_count, active_users) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE comment_count = comment_count + VALUES(comment_count), " +
+            "like_count = like_count + VALUES(like_count), active_users = active_users + VALUES(active_users)";
+    private static final String ACTIVE_USERS_SQL = "SELECT user_id FROM user_stats WHERE last_active_date = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    // 累加增量取读锁（可并发），换表取写锁：换下的表不会再被修改，写回时无需处理迟到的增量
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // 写回与对账互斥
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private Deltas active = new Deltas();
+    // 日期 -> 当天已计入活跃数的用户
+    private final Map<LocalDate, Set<Long>> activeUsers = new ConcurrentHashMap<>();
+
+    public CommentStatsAggregator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** 新评论：文章当天评论数、作者评论数、全站当天评论数各加1，作者计入当天活跃用户 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        LocalDate date = event.comment() != null
+                ? event.comment().comment().createdAt().toLocalDate()
+                : LocalDate.now();
+        Set<Long> dayUsers = activeUsers(date);
+        record(deltas -> {
+            deltas.articleDays.computeIfAbsent(new ArticleDay(event.articlePath(), date), k -> new LongAdder())
+                    .increment();
+            deltas.user(event.userId()).comments.increment();
+            deltas.day(date).comments.increment();
+            markActive(deltas, dayUsers, event.userId(), date);
+        });
+    }
+
+    /** 点赞/取消点赞：作者获赞数与全站当天点赞数随之增减，点赞者计入当天活跃用户 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentLikeChanged(CommentLikeChangedEvent event) {
+        LocalDate date = LocalDate.now();
+        Set<Long> dayUsers = activeUsers(date);
+        record(deltas -> {
+            deltas.user(event.authorId()).likes.add(event.delta());
+            deltas.day(date).likes.add(event.delta());
+            markActive(deltas, dayUsers, event.userId(), date);
+        });
+    }
+
+    /** 定时批量写回；对账进行中时跳过本轮，不占用调度线程等待对账结束 */
+    @Scheduled(fixedDelayString = "${cmbackend.stats.flush-interval:5s}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** 应用关闭前写回所有增量（等待进行中的对账结束） */
+    @PreDestroy
+    public void shutdown() {
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** 先写回已有增量，再在写回暂停期间执行对账，避免对账结果被随后写回的旧增量重复累加 */
+    void runExclusive(Runnable task) {
+        flushLock.lock();
+        try {
+            flushLocked();
+            task.run();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        Deltas toFlush;
+        swapLock.writeLock().lock();
+        try {
+            toFlush = active;
+            active = new Deltas();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        List<Object[]> articleRows = toFlush.articleDayRows();
+        List<Object[]> userRows = toFlush.userRows();
+        List<Object[]> dayRows = toFlush.dayRows();
+        if (!articleRows.isEmpty() || !userRows.isEmpty() || !dayRows.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(ARTICLE_DAY_SQL, articleRows);
+                    jdbcTemplate.batchUpdate(USER_SQL, userRows);
+                    jdbcTemplate.batchUpdate(DAY_SQL, dayRows);
+                });
+                log.debug("评论统计写回 {} 篇文章日、{} 个用户、{} 天", articleRows.size(), userRows.size(),
+                        dayRows.size());
+            } catch (RuntimeException e) {
+                // 写回失败时把增量并回当前表，下一轮重试
+                log.warn("评论统计写回失败，增量将在下次重试", e);
+                record(deltas -> deltas.merge(toFlush));
+            }
+        }
+
+        // 只保留今天和昨天的活跃用户集合，更早日期的迟到事件会从数据库重新加载
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        activeUsers.keySet().removeIf(date -> date.isBefore(yesterday));
+    }
+
+    private void record(Consumer<Deltas> update) {
+        swapLock.readLock().lock();
+        try {
+            update.accept(active);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void markActive(Deltas deltas, Set<Long> dayUsers, Long userId, LocalDate date) {
+        if (dayUsers.add(userId)) {
+            deltas.day(date).activeUsers.increment();
+            deltas.user(userId).markActive(date);
+        }
+    }
+
+    /**
+     * 某天已计入活跃数的用户集合，未加载时查询数据库
+     * 查询不在 computeIfAbsent 中执行，避免持有映射的桶锁与累加增量的读锁等待数据库；
+     * 并发加载同一天时以先放入的集合为准
+     */
+    private Set<Long> activeUsers(LocalDate date) {
+        Set<Long> users = activeUsers.get(date);
+        if (users != null) {
+            return users;
+        }
+        Set<Long> loaded = loadActiveUsers(date);
+        users = activeUsers.putIfAbsent(date, loaded);
+        return users != null ? users : loaded;
+    }
+
+    private Set<Long> loadActiveUsers(LocalDate date) {
+        Set<Long> users = ConcurrentHashMap.newKeySet();
+        users.addAll(jdbcTemplate.queryForList(ACTIVE_USERS_SQL, Long.class, date));
+        return users;
+    }
+
+    private record ArticleDay(String articlePath, LocalDate date) {
+    }
+
+    private static final class UserDelta {
+        final LongAdder comments = new LongAdder();
+        final LongAdder likes = new LongAdder();
+        // 本轮计入活跃的最新日期
+        final AtomicReference<LocalDate> lastActive = new AtomicReference<>();
+
+        void markActive(LocalDate date) {
+            if (date != null) {
+                lastActive.accumulateAndGet(date, (current, next) ->
+                        current == null || next.isAfter(current) ? next : current);
+            }
+        }
+    }
+
+    private static final class DayDelta {
+        final LongAdder comments = new LongAdder();
+        final LongAdder likes = new LongAdder();
+        final LongAdder activeUsers = new LongAdder();
+    }
+
+    /** 一轮写回周期内累加的增量 */
+    private static final class Deltas {
+        final Map<ArticleDay, LongAdder> articleDays = new ConcurrentHashMap<>();
+        final Map<Long, UserDelta> users = new ConcurrentHashMap<>();
+        final Map<LocalDate, DayDelta> days = new ConcurrentHashMap<>();
+
+        UserDelta user(Long userId) {
+            return users.computeIfAbsent(userId, id -> new UserDelta());
+        }
+
+        DayDelta day(LocalDate date) {
+            return days.computeIfAbsent(date, d -> new DayDelta());
+        }
+
+        void merge(Deltas other) {
+            other.articleDays.forEach((key, count) ->
+                    articleDays.computeIfAbsent(key, k -> new LongAdder()).add(count.sum()));
+            other.users.forEach((userId, delta) -> {
+                UserDelta target = user(userId);
+                target.comments.add(delta.comments.sum());
+                target.likes.add(delta.likes.sum());
+                target.markActive(delta.lastActive.get());
+            });
+            other.days.forEach((date, delta) -> {
+                DayDelta target = day(date);
+                target.comments.add(delta.comments.sum());
+                target.likes.add(delta.likes.sum());
+                target.activeUsers.add(delta.activeUsers.sum());
+            });
+        }
+
+        List<Object[]> articleDayRows() {
+            List<Object[]> rows = new ArrayList<>(articleDays.size());
+            articleDays.forEach((key, count) -> {
+                if (count.sum() != 0) {
+                    rows.add(new Object[]{key.articlePath(), key.date(), count.sum()});
+                }
+            });
+            return rows;
+        }
+
+        List<Object[]> userRows() {
+            List<Object[]> rows = new ArrayList<>(users.size());
+            users.forEach((userId, delta) -> {
+                LocalDate lastActiveDate = delta.lastActive.get();
+                if (delta.comments.sum() != 0 || delta.likes.sum() != 0 || lastActiveDate != null) {
+                    rows.add(new Object[]{userId, delta.comments.sum(), delta.likes.sum(), lastActiveDate});
+                }
+            });
+            return rows;
+        }
+
+        List<Object[]> dayRows() {
+            List<Object[]> rows = new ArrayList<>(days.size());
+            days.forEach((date, delta) -> rows.add(new Object[]{date, delta.comments.sum(), delta.likes.sum(),
+                    delta.activeUsers.sum()}));
+            return rows;
+        }
+    }
+}
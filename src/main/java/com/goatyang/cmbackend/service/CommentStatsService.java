@@ -0,0 +1,268 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.dto.UserStatView;
+import com.goatyang.cmbackend.model.ArticleDailyStat;
+import com.goatyang.cmbackend.model.DailyStat;
+import com.goatyang.cmbackend.repository.ArticleDailyStatRepository;
+import com.goatyang.cmbackend.repository.DailyStatRepository;
+import com.goatyang.cmbackend.repository.UserStatRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 评论统计查询与对账
+ * 管理端统计直接读取统计表中的少量行（按主键或索引范围），不再拉取评论与点赞明细计数。
+ * 统计表由 CommentStatsAggregator 增量维护，每晚从评论表与点赞表重新计算：
+ * 已结束日期的文章日统计与全站日统计、全部用户统计；当天的日统计仍由增量维护。
+ * 对账按日期区间与用户ID区间分批：每批先用普通查询（一致性读，不对明细表加锁）汇总到内存，
+ * 再在一个短事务中替换该区间的统计行，不会长时间锁住评论表与点赞表
+ */
+@Slf4j
+@Service
+public class CommentStatsService {
+
+    /** 一次查询的最大天数与排行榜最大条数 */
+    public static final int MAX_DAYS = 366;
+    public static final int MAX_TOP_SIZE = 100;
+
+    /** 对账每批处理的天数与用户数 */
+    private static final int RECONCILE_DAYS = 7;
+    private static final int RECONCILE_USERS = 1000;
+
+    // 统计表与明细表中最早的日期，统计表中更早的行（评论已全部删除的日期）也要清理
+    private static final String FIRST_DATE_SQL =
+            "SELECT MIN(d) FROM (SELECT MIN(stat_date) AS d FROM daily_stats " +
+            "UNION ALL SELECT MIN(stat_date) FROM article_daily_stats " +
+            "UNION ALL SELECT CAST(MIN(created_at) AS DATE) FROM comment " +
+            "UNION ALL SELECT CAST(MIN(created_at) AS DATE) FROM comment_like) t";
+    private static final String SELECT_ARTICLE_DAYS_SQL =
+            "SELECT article_path, CAST(created_at AS DATE), COUNT(*) FROM comment " +
+            "WHERE created_at >= ? AND created_at < ? GROUP BY article_path, CAST(created_at AS DATE)";
+    private static final String DELETE_ARTICLE_DAYS_SQL =
+            "DELETE FROM article_daily_stats WHERE stat_date >= ? AND stat_date < ?";
+    private static final String INSERT_ARTICLE_DAY_SQL =
+            "INSERT INTO article_daily_stats (article_path, stat_date, comment_count) VALUES (?, ?, ?)";
+    // 点赞按首次点赞日期计入，取消的点赞不计数但点赞者仍算当天活跃
+    private static final String SELECT_DAYS_SQL =
+            "SELECT a.stat_date, SUM(a.comments), SUM(a.likes), COUNT(DISTINCT a.user_id) FROM (" +
+            "SELECT CAST(created_at AS DATE) AS stat_date, user_id, 1 AS comments, 0 AS likes " +
+            "FROM comment WHERE created_at >= ? AND created_at < ? " +
+            "UNION ALL SELECT CAST(created_at AS DATE), user_id, 0, " +
+            "CASE WHEN is_canceled = false THEN 1 ELSE 0 END FROM comment_like " +
+            "WHERE created_at >= ? AND created_at < ?" +
+            ") a GROUP BY a.stat_date";
+    private static final String DELETE_DAYS_SQL = "DELETE FROM daily_stats WHERE stat_date >= ? AND stat_date < ?";
+    private static final String INSERT_DAY_SQL =
+            "INSERT INTO daily_stats (stat_date, comment_count, like_count, active_users) VALUES (?, ?, ?, ?)";
+    private static final String USER_IDS_SQL = "SELECT id FROM user WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String SELECT_USERS_SQL =
+            "SELECT u.id, COALESCE(c.cnt, 0), COALESCE(r.cnt, 0), CAST(CASE " +
+            "WHEN l.last_at IS NULL OR c.last_at >= l.last_at THEN c.last_at ELSE l.last_at END AS DATE) " +
+            "FROM user u " +
+            "LEFT JOIN (SELECT user_id, COUNT(*) AS cnt, MAX(created_at) AS last_at FROM comment " +
+            "WHERE user_id BETWEEN ? AND ? GROUP BY user_id) c ON c.user_id = u.id " +
+            "LEFT JOIN (SELECT cm.user_id, COUNT(*) AS cnt FROM comment_like cl " +
+            "JOIN comment cm ON cm.comment_id = cl.comment_id " +
+            "WHERE cl.is_canceled = false AND cm.user_id BETWEEN ? AND ? GROUP BY cm.user_id) r ON r.user_id = u.id " +
+            "LEFT JOIN (SELECT user_id, MAX(created_at) AS last_at FROM comment_like " +
+            "WHERE user_id BETWEEN ? AND ? GROUP BY user_id) l ON l.user_id = u.id " +
+            "WHERE u.id BETWEEN ? AND ?";
+    // 删除区间内的全部统计行（包括已删除用户的行），再写入重算结果
+    private static final String DELETE_USERS_SQL = "DELETE FROM user_stats WHERE user_id > ? AND user_id <= ?";
+    private static final String DELETE_USERS_AFTER_SQL = "DELETE FROM user_stats WHERE user_id > ?";
+    private static final String INSERT_USER_SQL =
+            "INSERT INTO user_stats (user_id, comment_count, likes_received, last_active_date) VALUES (?, ?, ?, ?)";
+
+    private final DailyStatRepository dailyStatRepository;
+    private final ArticleDailyStatRepository articleDailyStatRepository;
+    private final UserStatRepository userStatRepository;
+    private final CommentStatsAggregator aggregator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor taskExecutor;
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    public CommentStatsService(DailyStatRepository dailyStatRepository,
+                               ArticleDailyStatRepository articleDailyStatRepository,
+                               UserStatRepository userStatRepository,
+                               CommentStatsAggregator aggregator,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor) {
+        this.dailyStatRepository = dailyStatRepository;
+        this.articleDailyStatRepository = articleDailyStatRepository;
+        this.userStatRepository = userStatRepository;
+        this.aggregator = aggregator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.taskExecutor = taskExecutor;
+    }
+
+    /** 全站每日评论数、点赞数与活跃用户数 */
+    @Transactional(readOnly = true)
+    public List<DailyStat> getDailyStats(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return dailyStatRepository.findByStatDateBetweenOrderByStatDate(from, to);
+    }
+
+    /** 某篇文章每天的评论数（没有评论的日期不返回） */
+    @Transactional(readOnly = true)
+    public List<ArticleDailyStat> getArticleDailyStats(String articlePath, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return articleDailyStatRepository.findByArticlePathAndStatDateBetweenOrderByStatDate(articlePath, from, to);
+    }
+
+    /** 某天评论最多的文章 */
+    @Transactional(readOnly = true)
+    public List<ArticleDailyStat> getTopArticles(LocalDate date, int limit) {
+        return articleDailyStatRepository.findByStatDateOrderByCommentCountDesc(date, topLimit(limit));
+    }
+
+    /** 评论最多的用户 */
+    @Transactional(readOnly = true)
+    public List<UserStatView> getTopCommenters(int limit) {
+        return userStatRepository.findTopCommenters(topLimit(limit));
+    }
+
+    /** 获赞最多的用户 */
+    @Transactional(readOnly = true)
+    public List<UserStatView> getTopLikedUsers(int limit) {
+        return userStatRepository.findTopLiked(topLimit(limit));
+    }
+
+    /** 单个用户的评论数、获赞数与最近活跃日期 */
+    @Transactional(readOnly = true)
+    public UserStatView getUserStats(Long userId) {
+        return userStatRepository.findView(userId)
+                .orElseThrow(() -> new IllegalArgumentException("用户不存在或暂无统计"));
+    }
+
+    /** 统计表为空（首次部署）而已有评论时，启动后在后台从明细表生成 */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        Boolean empty = jdbcTemplate.queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM daily_stats) AND EXISTS (SELECT 1 FROM comment)", Boolean.class);
+        if (Boolean.TRUE.equals(empty)) {
+            reconcileAsync();
+        }
+    }
+
+    /** 每晚对账，修正删除评论/用户、批量导入与进程重启造成的偏差 */
+    @Scheduled(cron = "${cmbackend.stats.reconcile-cron:0 0 4 * * *}")
+    public void scheduledReconcile() {
+        reconcileAsync();
+    }
+
+    /**
+     * 在后台从评论表与点赞表重新计算统计表
+     *
+     * @return 是否已提交（已有对账在进行时返回false）
+     */
+    public boolean reconcileAsync() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    reconcile();
+                } catch (RuntimeException e) {
+                    log.error("评论统计对账失败", e);
+                } finally {
+                    reconciling.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            reconciling.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    /** 分批重算，期间暂停增量写回 */
+    void reconcile() {
+        long begin = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        aggregator.runExclusive(() -> {
+            reconcileDays(today);
+            reconcileUsers();
+        });
+        log.info("评论统计对账完成，耗时 {} ms", (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    /** 按 RECONCILE_DAYS 天一批重算今天之前的文章日统计与全站日统计 */
+    private void reconcileDays(LocalDate today) {
+        LocalDate first = jdbcTemplate.queryForObject(FIRST_DATE_SQL, LocalDate.class);
+        LocalDate from = first;
+        while (from != null && from.isBefore(today)) {
+            LocalDate next = from.plusDays(RECONCILE_DAYS);
+            LocalDate to = next.isAfter(today) ? today : next;
+            LocalDateTime start = from.atStartOfDay();
+            LocalDateTime end = to.atStartOfDay();
+            List<Object[]> articleRows = jdbcTemplate.query(SELECT_ARTICLE_DAYS_SQL, (rs, i) -> new Object[]{
+                    rs.getString(1), rs.getObject(2, LocalDate.class), rs.getLong(3)}, start, end);
+            List<Object[]> dayRows = jdbcTemplate.query(SELECT_DAYS_SQL, (rs, i) -> new Object[]{
+                    rs.getObject(1, LocalDate.class), rs.getLong(2), rs.getLong(3), rs.getLong(4)},
+                    start, end, start, end);
+            LocalDate chunkFrom = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_ARTICLE_DAYS_SQL, chunkFrom, to);
+                jdbcTemplate.batchUpdate(INSERT_ARTICLE_DAY_SQL, articleRows);
+                jdbcTemplate.update(DELETE_DAYS_SQL, chunkFrom, to);
+                jdbcTemplate.batchUpdate(INSERT_DAY_SQL, dayRows);
+            });
+            from = to;
+        }
+    }
+
+    /** 按用户ID顺序 RECONCILE_USERS 个一批重算用户统计，并删除已删除用户的统计行 */
+    private void reconcileUsers() {
+        long lastId = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(USER_IDS_SQL, Long.class, lastId, RECONCILE_USERS);
+            if (ids.isEmpty()) {
+                break;
+            }
+            long low = ids.get(0);
+            long high = ids.get(ids.size() - 1);
+            List<Object[]> rows = jdbcTemplate.query(SELECT_USERS_SQL, (rs, i) -> new Object[]{
+                    rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getObject(4, LocalDate.class)},
+                    low, high, low, high, low, high, low, high);
+            long previousId = lastId;
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_USERS_SQL, previousId, high);
+                jdbcTemplate.batchUpdate(INSERT_USER_SQL, rows);
+            });
+            lastId = high;
+        }
+        jdbcTemplate.update(DELETE_USERS_AFTER_SQL, lastId);
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new IllegalArgumentException("日期范围须在 " + MAX_DAYS + " 天以内");
+        }
+    }
+
+    private static Limit topLimit(int limit) {
+        return Limit.of(Math.min(Math.max(limit, 1), MAX_TOP_SIZE));
+    }
+}
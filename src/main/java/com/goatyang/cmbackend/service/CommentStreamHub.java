@@ -0,0 +1,468 @@
+package com.goatyang.cmbackend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goatyang.cmbackend.event.CommentCreatedEvent;
+import com.goatyang.cmbackend.event.CommentDeletedEvent;
+import com.goatyang.cmbackend.event.CommentLikeChangedEvent;
+import com.goatyang.cmbackend.event.CommentVisibilityChangedEvent;
+import com.goatyang.cmbackend.event.CommentsImportedEvent;
+import com.goatyang.cmbackend.event.UserContentDeletedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 文章评论实时推送（SSE）
+ * 按文章维护订阅者集合，事务提交后把新评论、删除与点赞数变化分发给订阅者。
+ * 连接由Servlet异步请求保持，写出使用Servlet非阻塞输出（WriteListener）：只在 isReady() 时写，
+ * 套接字写不下时由容器在可写后回调，客户端不再读取也不会阻塞任何线程。
+ * 每个订阅者有一个有界缓冲区，有待发事件时由固定大小的发送线程池批量写出：
+ * 点赞数按评论合并为最新值，新评论/删除积压超过上限时丢弃缓冲并发送 resync 事件，客户端收到后重新拉取评论列表。
+ * 写出持续不可写超过 send-timeout 的订阅者被移除并结束连接。
+ * 订阅数有全站上限与每个客户端IP上限，超出时返回429。
+ * 应用关闭时先结束所有连接，否则优雅停机会一直等待这些长连接。
+ * 推送的事件：comment（新评论节点，回复带 parentId/rootId）、deleted（评论ID）、likes（评论ID与最新点赞数）、resync
+ */
+@Slf4j
+@Component
+public class CommentStreamHub {
+
+    /** 订阅数超限时建议客户端等待的秒数 */
+    private static final long RETRY_AFTER_SECONDS = 30;
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final long sendTimeoutNanos;
+    private final int maxSubscribers;
+    private final int maxSubscribersPerClient;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // 客户端IP -> 订阅数
+    private final Map<String, Integer> clientSubscribers = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor sender;
+
+    public CommentStreamHub(ObjectMapper objectMapper,
+                            @Value("${cmbackend.comment-stream.timeout:30m}") Duration timeout,
+                            @Value("${cmbackend.comment-stream.buffer-size:256}") int bufferSize,
+                            @Value("${cmbackend.comment-stream.send-timeout:10s}") Duration sendTimeout,
+                            @Value("${cmbackend.comment-stream.max-subscribers:10000}") int maxSubscribers,
+                            @Value("${cmbackend.comment-stream.max-subscribers-per-client:8}") int maxSubscribersPerClient,
+                            @Value("${cmbackend.comment-stream.sender-threads:2}") int senderThreads,
+                            MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeout.toMillis();
+        this.bufferSize = bufferSize;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.maxSubscribers = maxSubscribers;
+        this.maxSubscribersPerClient = maxSubscribersPerClient;
+        // 写出不阻塞，线程数固定；每个订阅者同时最多排队一个发送任务，队列长度以订阅数上限为界
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxSubscribers), new CustomizableThreadFactory("comment-stream-"));
+        Gauge.builder("cmbackend.comment-stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("评论实时推送的在线订阅数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅文章的评论变化，连接超时或断开后客户端（EventSource）会自动重连
+     * 订阅数超限时直接返回429与 Retry-After
+     */
+    public void subscribe(String articlePath, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String client = request.getRemoteAddr();
+        if (!acquire(client)) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS));
+            return;
+        }
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(timeoutMillis);
+        Subscriber subscriber = new Subscriber(articlePath, client, async, response.getOutputStream());
+        subscribers.computeIfAbsent(articlePath, path -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        async.addListener(subscriber);
+        // 设置后容器会回调一次 onWritePossible，写出响应头与首个心跳
+        subscriber.out.setWriteListener(subscriber);
+    }
+
+    /** 向所有连接发送心跳注释行，保持代理不断开连接，同时及早发现已断开的客户端 */
+    @Scheduled(fixedDelayString = "${cmbackend.comment-stream.heartbeat-interval:15s}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::heartbeat));
+    }
+
+    /** 移除持续不可写超过 send-timeout 的订阅者 */
+    @Scheduled(fixedDelayString = "${cmbackend.comment-stream.stall-check-interval:1s}")
+    public void evictStalled() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            if (subscriber.isStalled(now)) {
+                log.debug("评论推送客户端写出超时，断开连接: articlePath={}", subscriber.articlePath);
+                subscriber.close();
+            }
+        }));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        if (event.comment() != null) {
+            forEach(event.articlePath(), subscriber -> subscriber.offer(new StreamEvent("comment", event.comment())));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentDeleted(CommentDeletedEvent event) {
+        forEach(event.articlePath(), subscriber -> subscriber.offer(new StreamEvent("deleted", event.commentId())));
+    }
+
+    /** 评论被审核标记时按删除推送；审核通过恢复展示时通知订阅者重新拉取 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentVisibilityChanged(CommentVisibilityChangedEvent event) {
+        if (event.visible()) {
+            forEach(event.articlePath(), Subscriber::resync);
+        } else {
+            forEach(event.articlePath(), subscriber -> subscriber.offer(new StreamEvent("deleted", event.commentId())));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentLikeChanged(CommentLikeChangedEvent event) {
+        forEach(event.articlePath(), subscriber -> subscriber.offerLikeCount(event.commentId(), event.likeCount()));
+    }
+
+    /** 用户级联删除会一次移除大量评论，通知相关文章的订阅者重新拉取 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserContentDeleted(UserContentDeletedEvent event) {
+        event.articlePaths().forEach(path -> forEach(path, Subscriber::resync));
+    }
+
+    /** 批量导入同样不逐条推送，通知订阅者重新拉取 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentsImported(CommentsImportedEvent event) {
+        event.articlePaths().forEach(path -> forEach(path, Subscriber::resync));
+    }
+
+    /** 在Web服务器优雅停机之前结束所有推送连接 */
+    @EventListener(ContextClosedEvent.class)
+    public void onContextClosed() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::close));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+    }
+
+    private void forEach(String articlePath, Consumer<Subscriber> action) {
+        Set<Subscriber> set = subscribers.get(articlePath);
+        if (set != null) {
+            set.forEach(action);
+        }
+    }
+
+    /** 占用一个订阅名额（全站与客户端IP两级） */
+    private boolean acquire(String client) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return false;
+        }
+        AtomicBoolean acquired = new AtomicBoolean();
+        clientSubscribers.compute(client, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxSubscribersPerClient) {
+                return count;
+            }
+            acquired.set(true);
+            return current + 1;
+        });
+        if (!acquired.get()) {
+            subscriberCount.decrementAndGet();
+        }
+        return acquired.get();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        clientSubscribers.computeIfPresent(subscriber.client, (key, count) -> count <= 1 ? null : count - 1);
+        subscribers.computeIfPresent(subscriber.articlePath, (path, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private String toJson(Object data) {
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("评论推送事件序列化失败", e);
+        }
+    }
+
+    /** SSE 事件格式；多行数据拆成多个 data 字段 */
+    private static void appendEvent(StringBuilder batch, String name, String data) {
+        batch.append("event:").append(name).append('\n');
+        for (String line : data.split("\r\n|\r|\n", -1)) {
+            batch.append("data:").append(line).append('\n');
+        }
+        batch.append('\n');
+    }
+
+    private record StreamEvent(String name, Object data) {
+    }
+
+    private record LikeCount(Long commentId, long likeCount) {
+    }
+
+    /**
+     * 单个连接的发送缓冲
+     * 入队只在对象锁内修改内存结构（不做I/O）；写出由发送线程执行，同一订阅者同时只有一个发送任务，
+     * 对响应的写出与结束都在发送任务中进行
+     */
+    private final class Subscriber implements WriteListener, AsyncListener {
+
+        private final String articlePath;
+        private final String client;
+        private final AsyncContext async;
+        private final ServletOutputStream out;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // 发送任务运行期间又有新事件或可写回调时置位，任务结束前重新检查
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        // 开始不可写的时间（System.nanoTime），0 表示可写
+        private volatile long blockedSince;
+
+        private final ArrayDeque<StreamEvent> events = new ArrayDeque<>();
+        // 评论ID -> 最新点赞数，同一评论的多次变化只推送最后一次
+        private final LinkedHashMap<Long, Long> likeCounts = new LinkedHashMap<>();
+        private boolean overflowed;
+        // 首次写出一个心跳，尽早提交响应头
+        private boolean heartbeatPending = true;
+
+        Subscriber(String articlePath, String client, AsyncContext async, ServletOutputStream out) {
+            this.articlePath = articlePath;
+            this.client = client;
+            this.async = async;
+            this.out = out;
+        }
+
+        void offer(StreamEvent event) {
+            synchronized (this) {
+                if (!overflowed) {
+                    if (events.size() < bufferSize) {
+                        events.add(event);
+                    } else {
+                        markOverflowed();
+                    }
+                }
+            }
+            schedule();
+        }
+
+        void offerLikeCount(Long commentId, long likeCount) {
+            synchronized (this) {
+                if (!overflowed) {
+                    if (likeCounts.size() < bufferSize || likeCounts.containsKey(commentId)) {
+                        likeCounts.put(commentId, likeCount);
+                    } else {
+                        markOverflowed();
+                    }
+                }
+            }
+            schedule();
+        }
+
+        void resync() {
+            synchronized (this) {
+                markOverflowed();
+            }
+            schedule();
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                heartbeatPending = true;
+            }
+            schedule();
+        }
+
+        /** 移除订阅并由发送任务结束连接 */
+        void close() {
+            unsubscribe(this);
+            schedule();
+        }
+
+        boolean isStalled(long now) {
+            long since = blockedSince;
+            return since != 0 && now - since > sendTimeoutNanos;
+        }
+
+        private void markOverflowed() {
+            overflowed = true;
+            events.clear();
+            likeCounts.clear();
+        }
+
+        private void schedule() {
+            dirty.set(true);
+            if (completed.get() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 应用关闭中
+                scheduled.set(false);
+            }
+        }
+
+        /** 在可写期间写出缓冲的事件；不可写时返回，等待容器回调 onWritePossible */
+        private void drain() {
+            try {
+                do {
+                    dirty.set(false);
+                    if (closed.get()) {
+                        complete();
+                        return;
+                    }
+                    while (out.isReady()) {
+                        blockedSince = 0;
+                        byte[] batch = takeBatch();
+                        if (batch.length == 0) {
+                            break;
+                        }
+                        out.write(batch);
+                        if (out.isReady()) {
+                            out.flush();
+                        }
+                    }
+                    if (!out.isReady() && blockedSince == 0) {
+                        blockedSince = System.nanoTime();
+                    }
+                } while (dirty.get());
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开或连接已结束
+                log.debug("评论推送连接已断开: articlePath={}", articlePath);
+                unsubscribe(this);
+                complete();
+            } finally {
+                scheduled.set(false);
+            }
+            if (dirty.get()) {
+                schedule();
+            }
+        }
+
+        private void complete() {
+            if (completed.compareAndSet(false, true)) {
+                try {
+                    async.complete();
+                } catch (IllegalStateException e) {
+                    // 容器已结束该请求
+                }
+            }
+        }
+
+        private synchronized byte[] takeBatch() {
+            StringBuilder batch = new StringBuilder();
+            if (overflowed) {
+                appendEvent(batch, "resync", articlePath);
+                overflowed = false;
+            }
+            for (StreamEvent event : events) {
+                appendEvent(batch, event.name(), toJson(event.data()));
+            }
+            events.clear();
+            if (!likeCounts.isEmpty()) {
+                List<LikeCount> changes = new ArrayList<>(likeCounts.size());
+                likeCounts.forEach((commentId, likeCount) -> changes.add(new LikeCount(commentId, likeCount)));
+                appendEvent(batch, "likes", toJson(changes));
+                likeCounts.clear();
+            }
+            if (heartbeatPending) {
+                if (batch.isEmpty()) {
+                    batch.append(":heartbeat\n\n");
+                }
+                heartbeatPending = false;
+            }
+            return batch.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void onWritePossible() {
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.debug("评论推送连接写出失败: articlePath={}", articlePath);
+            unsubscribe(this);
+            complete();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            completed.set(true);
+            unsubscribe(this);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            unsubscribe(this);
+            complete();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            unsubscribe(this);
+            complete();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.dto.CommentClone;
+import com.goatyang.cmbackend.dto.FingerprintMatch;
+import com.goatyang.cmbackend.exception.DuplicateCommentException;
+import com.goatyang.cmbackend.model.Comment;
+import com.goatyang.cmbackend.repository.CommentRepository;
+import com.goatyang.cmbackend.util.ContentFingerprint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 评论内容指纹：查找相同与近似重复的评论
+ * 发评论时计算指纹并随评论保存（见 ContentFingerprint），完全重复按 content_hash 索引查找，
+ * 近似重复按6个 simhash 段索引取候选后按汉明距离过滤，都不扫描评论正文。
+ * 可配置在时间窗口内相同或近似的评论达到阈值时拒绝发布；指纹列新增前的历史评论在启动后分批回填
+ */
+@Slf4j
+@Service
+public class ContentFingerprintService {
+
+    /** 一次查找最多读取的候选数与返回的重复评论数 */
+    private static final int MAX_CANDIDATES = 1000;
+    private static final int MAX_CLONES = 200;
+
+    private static final String BACKFILL_SELECT_SQL = "SELECT comment_id, content FROM comment " +
+            "WHERE comment_id > ? AND content_hash IS NULL ORDER BY comment_id LIMIT ?";
+    private static final String BACKFILL_UPDATE_SQL = "UPDATE comment SET content_hash = ?, simhash = ?, " +
+            "simhash_band0 = ?, simhash_band1 = ?, simhash_band2 = ?, simhash_band3 = ?, " +
+            "simhash_band4 = ?, simhash_band5 = ? WHERE comment_id = ?";
+
+    private final CommentRepository commentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor taskExecutor;
+    private final Duration window;
+    private final int maxDistance;
+    private final int minLength;
+    private final int rejectThreshold;
+    private final int backfillBatchSize;
+    private final Counter rejected;
+
+    public ContentFingerprintService(CommentRepository commentRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${cmbackend.fingerprint.window:24h}") Duration window,
+                                     @Value("${cmbackend.fingerprint.max-distance:5}") int maxDistance,
+                                     @Value("${cmbackend.fingerprint.min-length:10}") int minLength,
+                                     @Value("${cmbackend.fingerprint.reject-threshold:0}") int rejectThreshold,
+                                     @Value("${cmbackend.fingerprint.backfill-batch-size:1000}") int backfillBatchSize) {
+        if (maxDistance >= ContentFingerprint.BANDS) {
+            throw new IllegalArgumentException("cmbackend.fingerprint.max-distance 必须小于 " + ContentFingerprint.BANDS);
+        }
+        this.commentRepository = commentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.window = window;
+        this.maxDistance = maxDistance;
+        this.minLength = minLength;
+        this.rejectThreshold = rejectThreshold;
+        this.backfillBatchSize = backfillBatchSize;
+        this.rejected = Counter.builder("cmbackend.fingerprint.rejected")
+                .description("因重复内容被拒绝发布的评论数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 发评论前检查：时间窗口内已有 reject-threshold 条相同或近似的评论时拒绝（阈值为0时不检查）
+     * 过短的内容（如“谢谢分享”）经常被不同读者正常重复，不参与检查
+     */
+    public void checkDuplicate(ContentFingerprint fingerprint) {
+        if (rejectThreshold <= 0 || fingerprint.length() < minLength) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (findSimilar(fingerprint, now.minus(window), now, rejectThreshold).size() >= rejectThreshold) {
+            rejected.increment();
+            throw new DuplicateCommentException();
+        }
+    }
+
+    /**
+     * 查找与指定评论相同或近似的其他评论（该评论创建前后 window 内），
+     * 完全相同的在前，其余按汉明距离、创建时间倒序
+     *
+     * @param window 为null时使用配置的时间窗口
+     */
+    @Transactional(readOnly = true)
+    public List<CommentClone> findClones(Long commentId, Duration window) {
+        Comment source = commentRepository.findById(commentId)
+                .orElseThrow(() -> new IllegalArgumentException("评论不存在"));
+        Duration range = window != null ? window : this.window;
+        ContentFingerprint fingerprint = ContentFingerprint.of(source.getContent());
+        List<FingerprintMatch> matches = findSimilar(fingerprint,
+                source.getCreatedAt().minus(range), source.getCreatedAt().plus(range), MAX_CLONES + 1);
+
+        Map<Long, FingerprintMatch> byId = new HashMap<>();
+        matches.forEach(match -> byId.put(match.commentId(), match));
+        byId.remove(commentId);
+        List<CommentClone> clones = new ArrayList<>(byId.size());
+        for (Comment comment : commentRepository.findWithUserByIds(byId.keySet())) {
+            FingerprintMatch match = byId.get(comment.getCommentId());
+            clones.add(new CommentClone(comment.getCommentId(), comment.getUser().getId(),
+                    comment.getUser().getUsername(), comment.getArticlePath(), comment.getContent(),
+                    comment.getCreatedAt(), Long.valueOf(fingerprint.contentHash()).equals(match.contentHash()),
+                    fingerprint.distance(match.simhash())));
+        }
+        clones.sort(Comparator.comparing(CommentClone::identical).reversed()
+                .thenComparingInt(CommentClone::distance)
+                .thenComparing(CommentClone::createdAt, Comparator.reverseOrder()));
+        return clones.size() > MAX_CLONES ? clones.subList(0, MAX_CLONES) : clones;
+    }
+
+    /**
+     * 时间范围内相同或近似（汉明距离不超过 max-distance）的评论，最多 limit 条
+     * 先按 content_hash 查完全重复，不足 limit 条且内容足够长时再按 simhash 段查近似重复；
+     * 过短内容的 simhash 区分度低，段值容易与大量无关评论相同，只查完全重复
+     */
+    private List<FingerprintMatch> findSimilar(ContentFingerprint fingerprint,
+                                               LocalDateTime from, LocalDateTime to, int limit) {
+        List<Long> identicalIds = commentRepository.findIdsByContentHash(
+                fingerprint.contentHash(), from, to, Limit.of(limit));
+        List<FingerprintMatch> matches = new ArrayList<>(identicalIds.size());
+        identicalIds.forEach(id -> matches.add(
+                new FingerprintMatch(id, fingerprint.contentHash(), fingerprint.simhash())));
+        if (matches.size() >= limit || fingerprint.length() < minLength) {
+            return matches;
+        }
+
+        List<FingerprintMatch> candidates = commentRepository.findBySimhashBands(
+                fingerprint.band(0), fingerprint.band(1), fingerprint.band(2),
+                fingerprint.band(3), fingerprint.band(4), fingerprint.band(5),
+                from, to, Limit.of(MAX_CANDIDATES));
+        for (FingerprintMatch candidate : candidates) {
+            if (matches.size() >= limit) {
+                break;
+            }
+            if (Long.valueOf(fingerprint.contentHash()).equals(candidate.contentHash())) {
+                continue; // 已在完全重复中
+            }
+            if (candidate.simhash() != null && fingerprint.distance(candidate.simhash()) <= maxDistance) {
+                matches.add(candidate);
+            }
+        }
+        return matches;
+    }
+
+    /** 启动后在后台为没有指纹的历史评论回填 */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        taskExecutor.execute(this::backfill);
+    }
+
+    /** 按评论ID顺序分批计算指纹并用JDBC批处理写回，每批一个事务 */
+    void backfill() {
+        long lastId = 0;
+        long filled = 0;
+        while (true) {
+            long after = lastId;
+            List<Object[]> updates = new ArrayList<>(backfillBatchSize);
+            jdbcTemplate.query(BACKFILL_SELECT_SQL, rs -> {
+                ContentFingerprint fingerprint = ContentFingerprint.of(rs.getString("content"));
+                updates.add(new Object[]{fingerprint.contentHash(), fingerprint.simhash(),
+                        fingerprint.band(0), fingerprint.band(1), fingerprint.band(2),
+                        fingerprint.band(3), fingerprint.band(4), fingerprint.band(5),
+                        rs.getLong("comment_id")});
+            }, after, backfillBatchSize);
+            if (updates.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(BACKFILL_UPDATE_SQL, updates));
+            lastId = (Long) updates.get(updates.size() - 1)[8];
+            filled += updates.size();
+        }
+        if (filled > 0) {
+            log.info("已为 {} 条历史评论回填内容指纹", filled);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.config.ModerationProperties;
+import com.goatyang.cmbackend.dto.ModerationTask;
+import com.goatyang.cmbackend.util.CommentTokenizer;
+import com.goatyang.cmbackend.util.ContentFingerprint;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 相同内容检测
+ * 按归一化正文的64位哈希统计窗口内的评论数，超过阈值后的评论被标记；
+ * 过短的内容（如“谢谢分享”）经常被不同读者正常重复，不参与检测
+ */
+@Component
+@Order(2)
+public class DuplicateContentModerationStage implements ModerationStage {
+
+    private final int threshold;
+    private final Duration window;
+    private final int minLength;
+    private final WindowedOccurrences<Long> occurrences;
+
+    public DuplicateContentModerationStage(ModerationProperties properties) {
+        this.threshold = properties.duplicate().threshold();
+        this.window = properties.duplicate().window();
+        this.minLength = properties.duplicateMinLength();
+        this.occurrences = new WindowedOccurrences<>(properties.duplicate().window(), 100_000);
+    }
+
+    @Override
+    public String name() {
+        return "duplicate";
+    }
+
+    @Override
+    public String check(ModerationTask task) {
+        if (threshold <= 0) {
+            return null;
+        }
+        String normalized = CommentTokenizer.normalize(task.content());
+        if (normalized.length() < minLength) {
+            return null;
+        }
+        int count = occurrences.record(ContentFingerprint.hash(normalized), task.commentId(), task.createdAt());
+        return count > threshold ? window + " 内相同内容出现 " + count + " 次" : null;
+    }
+}
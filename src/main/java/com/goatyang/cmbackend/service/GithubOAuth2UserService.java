@@ -1,9 +1,12 @@
 package com.goatyang.cmbackend.service;
 
+import com.goatyang.cmbackend.event.UserIdentityChangedEvent;
 import com.goatyang.cmbackend.model.CustomOAuth2User;
 import com.goatyang.cmbackend.model.User;
 import com.goatyang.cmbackend.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
@@ -24,6 +27,8 @@ public class GithubOAuth2UserService extends DefaultOAuth2UserService {
 
     // 注入用户仓库，用于用户信息的数据库操作
     private final UserRepository userRepository;
+    // 发布用户身份变更事件
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 加载并处理OAuth2用户信息
@@ -34,6 +39,7 @@ public class GithubOAuth2UserService extends DefaultOAuth2UserService {
      * @throws OAuth2AuthenticationException 当认证过程出现异常时抛出
      */
     @Override
+    @Timed(value = "cmbackend.oauth2.load-user", description = "GitHub用户信息拉取与本地同步耗时", histogram = true)
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
         // 调用父类的loadUser方法，获取GitHub返回的原始用户信息
         OAuth2User oAuth2User = super.loadUser(userRequest);
@@ -46,6 +52,8 @@ public class GithubOAuth2UserService extends DefaultOAuth2UserService {
 
         // 保存或更新用户信息到数据库（如果是新用户则创建，已有用户则更新）
         userRepository.save(user);
+        // 重新登录可能更新了用户名、头像等展示字段，失效身份缓存
+        eventPublisher.publishEvent(new UserIdentityChangedEvent(user.getGithubId()));
 
         // 返回自定义的OAuth2User对象，包含本地数据库中的用户ID和GitHub用户属性
         // "login"指定了用于获取用户名的属性键（对应GitHub返回的login字段）
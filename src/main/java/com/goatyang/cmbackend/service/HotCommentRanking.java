@@ -0,0 +1,275 @@
+package com.goatyang.cmbackend.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.goatyang.cmbackend.config.ReadWriteRoutingDataSource;
+import com.goatyang.cmbackend.dto.CommentScore;
+import com.goatyang.cmbackend.dto.CommentView;
+import com.goatyang.cmbackend.event.CommentDeletedEvent;
+import com.goatyang.cmbackend.event.CommentLikeChangedEvent;
+import com.goatyang.cmbackend.event.CommentVisibilityChangedEvent;
+import com.goatyang.cmbackend.event.CommentsImportedEvent;
+import com.goatyang.cmbackend.event.UserContentDeletedEvent;
+import com.goatyang.cmbackend.repository.CommentRepository;
+import com.goatyang.cmbackend.util.CacheLoads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文章热门评论榜
+ * 每篇文章在内存中维护一个有界的候选集合（按热度分数排序），由点赞、删除事件增量更新，
+ * 查询直接返回不可变快照，不访问数据库。
+ * 热度分数 = log10(点赞数) + 发布时间(秒) / 45000，分数不随时间变化，因此无需定期重排；
+ * 发布时间每晚12.5小时，需要十倍的点赞数才能排在同一位置。没有点赞的评论不进榜
+ */
+@Slf4j
+@Component
+public class HotCommentRanking {
+
+    /** 接口默认返回条数 */
+    public static final int DEFAULT_K = 10;
+    /** 接口允许的最大条数 */
+    public static final int MAX_K = 50;
+    /** 每篇文章保留的候选数，多于MAX_K用来吸收点赞数下降造成的排名变化 */
+    private static final int CAPACITY = MAX_K * 2;
+    private static final double DECAY_SECONDS = 45000;
+
+    /** 分数倒序，同分按评论ID倒序 */
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparing(entry -> entry.view().commentId(), Comparator.reverseOrder());
+
+    private final CommentRepository commentRepository;
+    private final LikeCountAggregator likeCountAggregator;
+    private final AsyncTaskExecutor taskExecutor;
+    private final int warmArticles;
+    private final AsyncCache<String, Board> boards;
+
+    public HotCommentRanking(CommentRepository commentRepository,
+                             LikeCountAggregator likeCountAggregator,
+                             @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                             @Value("${cmbackend.hot-comments.maximum-articles:10000}") long maximumArticles,
+                             @Value("${cmbackend.hot-comments.warm-articles:1000}") int warmArticles) {
+        this.commentRepository = commentRepository;
+        this.likeCountAggregator = likeCountAggregator;
+        this.taskExecutor = taskExecutor;
+        this.warmArticles = warmArticles;
+        this.boards = Caffeine.newBuilder()
+                .maximumSize(maximumArticles)
+                .buildAsync();
+    }
+
+    /** 获取文章热门评论前k条 */
+    public List<CommentView> top(String articlePath, int k) {
+        int size = Math.max(1, Math.min(k, MAX_K));
+        Board board = CacheLoads.getOrLoad(boards, articlePath, this::load);
+        if (board.reloadNeeded) {
+            // 候选数因取消点赞、删除跌破MAX_K且榜外可能还有评论，重新加载
+            boards.synchronous().asMap().remove(articlePath, board);
+            board = CacheLoads.getOrLoad(boards, articlePath, this::load);
+        }
+        List<CommentView> snapshot = board.snapshot;
+        return snapshot.subList(0, Math.min(size, snapshot.size()));
+    }
+
+    /** 启动后在后台预热最近有评论的文章 */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmArticles <= 0) {
+            return;
+        }
+        taskExecutor.execute(() -> {
+            try {
+                List<String> articlePaths = commentRepository.findRecentlyCommentedArticlePaths(Limit.of(warmArticles));
+                articlePaths.forEach(path -> CacheLoads.getOrLoad(boards, path, this::load));
+                log.info("热门评论榜预热完成，文章数={}", articlePaths.size());
+            } catch (RuntimeException e) {
+                log.warn("热门评论榜预热失败，将在首次访问时加载", e);
+            }
+        });
+    }
+
+    /** 从主库加载一篇文章的候选集合 */
+    private Board load(String articlePath) {
+        return ReadWriteRoutingDataSource.onPrimary(() -> loadCandidates(articlePath));
+    }
+
+    private Board loadCandidates(String articlePath) {
+        List<CommentScore> candidates = commentRepository.findScoresByArticlePath(articlePath).stream()
+                .map(row -> new CommentScore(row.commentId(),
+                        Math.max(row.likeCount() + likeCountAggregator.pendingDelta(row.commentId()), 0),
+                        row.createdAt()))
+                .filter(row -> row.likeCount() > 0)
+                .sorted(Comparator.comparingDouble((CommentScore row) -> score(row.likeCount(), row.createdAt()))
+                        .reversed()
+                        .thenComparing(CommentScore::commentId, Comparator.reverseOrder()))
+                .toList();
+
+        Board board = new Board(candidates.size() > CAPACITY);
+        List<CommentScore> kept = candidates.subList(0, Math.min(candidates.size(), CAPACITY));
+        if (!kept.isEmpty()) {
+            Map<Long, Long> likeCounts = new HashMap<>();
+            kept.forEach(row -> likeCounts.put(row.commentId(), row.likeCount()));
+            for (CommentView view : commentRepository.findViewsByIds(likeCounts.keySet())) {
+                board.add(entry(view.withLikeCount(likeCounts.get(view.commentId()))));
+            }
+        }
+        board.publish();
+        return board;
+    }
+
+    /**
+     * 点赞状态翻转后更新榜单
+     * 已在榜的评论直接更新点赞数；榜外评论分数超过收录门槛时才查询评论视图
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentLikeChanged(CommentLikeChangedEvent event) {
+        Board board = boards.synchronous().getIfPresent(event.articlePath());
+        if (board == null) {
+            return;
+        }
+        Long commentId = event.commentId();
+        CommentView admitted = null;
+        if (!board.members.containsKey(commentId) && event.likeCount() > 0
+                && score(event.likeCount(), event.commentCreatedAt()) > board.admitThreshold) {
+            admitted = commentRepository.findViewsByIds(List.of(commentId)).stream()
+                    .findFirst()
+                    .map(view -> view.withLikeCount(event.likeCount()))
+                    .orElse(null);
+        }
+        CommentView candidate = admitted;
+        boards.synchronous().asMap().computeIfPresent(event.articlePath(), (path, b) -> {
+            b.onLikeChanged(commentId, event.likeCount(), candidate);
+            return b;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentDeleted(CommentDeletedEvent event) {
+        boards.synchronous().asMap().computeIfPresent(event.articlePath(), (path, b) -> {
+            b.remove(event.commentId());
+            return b;
+        });
+    }
+
+    /** 被审核标记的评论移出榜单；审核通过恢复展示后榜单下次访问时从数据库重建 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentVisibilityChanged(CommentVisibilityChangedEvent event) {
+        if (event.visible()) {
+            boards.synchronous().invalidate(event.articlePath());
+            return;
+        }
+        boards.synchronous().asMap().computeIfPresent(event.articlePath(), (path, b) -> {
+            b.remove(event.commentId());
+            return b;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserContentDeleted(UserContentDeletedEvent event) {
+        boards.synchronous().invalidateAll(event.articlePaths());
+    }
+
+    /** 导入的历史评论带有点赞数，榜单下次访问时从数据库重建 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentsImported(CommentsImportedEvent event) {
+        boards.synchronous().invalidateAll(event.articlePaths());
+    }
+
+    private static Entry entry(CommentView view) {
+        return new Entry(view, score(view.likeCount(), view.createdAt()));
+    }
+
+    private static double score(long likeCount, LocalDateTime createdAt) {
+        long epochSeconds = createdAt == null ? 0 : createdAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+        return Math.log10(Math.max(likeCount, 1)) + epochSeconds / DECAY_SECONDS;
+    }
+
+    private record Entry(CommentView view, double score) {
+    }
+
+    /**
+     * 单篇文章的候选集合
+     * 不变式：所有未收录评论的分数都不高于集合中的最低分。
+     * 写操作只在 Caffeine 的 computeIfPresent 中执行（同一文章串行，不做I/O），读操作只读取volatile快照
+     */
+    private static final class Board {
+
+        private final TreeSet<Entry> ranked = new TreeSet<>(ORDER);
+        private final Map<Long, Entry> members = new ConcurrentHashMap<>();
+        // 是否可能存在未收录的候选（有点赞但排在容量之外）
+        private boolean truncated;
+
+        private volatile List<CommentView> snapshot = List.of();
+        // 榜外评论的收录门槛，未截断时任何有点赞的评论都可收录
+        private volatile double admitThreshold = Double.NEGATIVE_INFINITY;
+        private volatile boolean reloadNeeded;
+
+        Board(boolean truncated) {
+            this.truncated = truncated;
+        }
+
+        void onLikeChanged(Long commentId, long likeCount, CommentView candidate) {
+            Entry current = members.get(commentId);
+            if (current != null) {
+                ranked.remove(current);
+                members.remove(commentId);
+                Entry updated = entry(current.view().withLikeCount(likeCount));
+                // 跌到末位以下时，榜外可能有评论已高于它，移出榜单以保持不变式
+                boolean fellBelowTail = truncated && likeCount < current.view().likeCount()
+                        && !ranked.isEmpty() && ORDER.compare(updated, ranked.last()) > 0;
+                if (likeCount > 0 && !fellBelowTail) {
+                    add(updated);
+                }
+            } else if (candidate != null) {
+                Entry entry = entry(candidate);
+                if (truncated && !ranked.isEmpty() && ORDER.compare(entry, ranked.last()) > 0) {
+                    return;
+                }
+                add(entry);
+                if (ranked.size() > CAPACITY) {
+                    Entry evicted = ranked.pollLast();
+                    members.remove(evicted.view().commentId());
+                    truncated = true;
+                }
+            } else {
+                return;
+            }
+            publish();
+        }
+
+        void remove(Long commentId) {
+            Entry current = members.remove(commentId);
+            if (current != null) {
+                ranked.remove(current);
+                publish();
+            }
+        }
+
+        void add(Entry entry) {
+            ranked.add(entry);
+            members.put(entry.view().commentId(), entry);
+        }
+
+        void publish() {
+            snapshot = ranked.stream().limit(MAX_K).map(Entry::view).toList();
+            admitThreshold = truncated && !ranked.isEmpty() ? ranked.last().score() : Double.NEGATIVE_INFINITY;
+            reloadNeeded = truncated && ranked.size() < MAX_K;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.config.ModerationProperties;
+import com.goatyang.cmbackend.dto.ModerationTask;
+import com.goatyang.cmbackend.util.AhoCorasick;
+import com.goatyang.cmbackend.util.CommentTokenizer;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 敏感词与正则过滤
+ * 敏感词在启动时编译为一个 Aho–Corasick 自动机，对归一化后的正文扫描一遍即可；正则同样只编译一次
+ */
+@Component
+@Order(1)
+public class KeywordModerationStage implements ModerationStage {
+
+    private final AhoCorasick keywords;
+    private final List<Pattern> patterns;
+
+    public KeywordModerationStage(ModerationProperties properties) {
+        this.keywords = new AhoCorasick(properties.keywords().stream()
+                .map(CommentTokenizer::normalize)
+                .toList());
+        this.patterns = properties.patterns().stream()
+                .map(regex -> Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE))
+                .toList();
+    }
+
+    @Override
+    public String name() {
+        return "keyword";
+    }
+
+    @Override
+    public String check(ModerationTask task) {
+        if (!keywords.isEmpty()) {
+            String keyword = keywords.findFirst(CommentTokenizer.normalize(task.content()));
+            if (keyword != null) {
+                return keyword;
+            }
+        }
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(task.content()).find()) {
+                return pattern.pattern();
+            }
+        }
+        return null;
+    }
+}
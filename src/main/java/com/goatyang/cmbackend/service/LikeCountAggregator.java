@@ -0,0 +1,160 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.event.CommentLikeChangedEvent;
+import com.goatyang.cmbackend.event.CommentLikesFlushedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 点赞数写回聚合器（write-behind）
+ * 点赞/取消点赞提交后只在内存中按评论累加增量（LongAdder分段计数，热点评论无锁竞争），
+ * 由定时任务批量执行 UPDATE comment SET like_count = like_count + ? 写回数据库，
+ * 避免每次点击都对同一行加锁更新。读取点赞数时需要叠加 pendingDelta。
+ *
+ * 内部使用双缓冲：flush时把 active 换成新表，上一轮换下的表在下一次flush时才丢弃，
+ * 这样换表瞬间仍在累加的线程不会丢失增量，整个过程无需对点赞路径加锁。
+ */
+@Slf4j
+@Component
+public class LikeCountAggregator {
+
+    private static final String FLUSH_SQL =
+            "UPDATE comment SET like_count = GREATEST(like_count + ?, 0) WHERE comment_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // 正在接收增量的表
+    private volatile Map<Long, PendingDelta> active = new ConcurrentHashMap<>();
+    // 上一次flush换下、等待写回（或写回失败待重试）的表
+    private volatile Map<Long, PendingDelta> draining = new ConcurrentHashMap<>();
+
+    public LikeCountAggregator(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 点赞事务提交后计入增量：回滚的点赞不会留下增量，写回也不会早于点赞记录提交。
+     * 先于其他监听器执行，点赞版本递增时读取方已能通过 pendingDelta 看到新的点赞数
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentLikeChanged(CommentLikeChangedEvent event) {
+        add(event.commentId(), event.articlePath(), event.delta());
+    }
+
+    /** 记录某评论的点赞数增量 */
+    public void add(Long commentId, String articlePath, long delta) {
+        active.computeIfAbsent(commentId, id -> new PendingDelta(articlePath)).adder.add(delta);
+    }
+
+    /** 查询某评论尚未写回数据库的点赞数增量 */
+    public long pendingDelta(Long commentId) {
+        return sum(active.get(commentId)) + sum(draining.get(commentId));
+    }
+
+    /** 有未写回增量的评论数 */
+    public int pendingComments() {
+        return active.size() + draining.size();
+    }
+
+    /** 定时批量写回 */
+    @Scheduled(fixedDelayString = "${cmbackend.like-aggregator.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, PendingDelta> retired = draining;
+            Map<Long, PendingDelta> toFlush = active;
+            active = new ConcurrentHashMap<>();
+
+            // 上一轮换下的表已静止，把残余增量（换表时的迟到写入或写回失败的增量）并入本轮
+            retired.forEach((commentId, pending) -> {
+                long residue = pending.adder.sumThenReset();
+                if (residue != 0) {
+                    toFlush.computeIfAbsent(commentId, id -> new PendingDelta(pending.articlePath))
+                            .adder.add(residue);
+                }
+            });
+            draining = toFlush;
+
+            List<Object[]> batchArgs = new ArrayList<>();
+            List<PendingDelta> flushed = new ArrayList<>();
+            List<Long> flushedDeltas = new ArrayList<>();
+            Set<String> articlePaths = new HashSet<>();
+            toFlush.forEach((commentId, pending) -> {
+                long delta = pending.adder.sum();
+                if (delta != 0) {
+                    batchArgs.add(new Object[]{delta, commentId});
+                    flushed.add(pending);
+                    flushedDeltas.add(delta);
+                    articlePaths.add(pending.articlePath);
+                }
+            });
+            if (batchArgs.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, batchArgs));
+            } catch (RuntimeException e) {
+                // 写回失败时保留增量，下一轮flush重试
+                log.warn("点赞数批量写回失败，{} 条评论的增量将在下次重试", batchArgs.size(), e);
+                return;
+            }
+
+            // 写回成功后再扣减内存增量，读取方始终能看到完整的点赞数
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).adder.add(-flushedDeltas.get(i));
+            }
+            eventPublisher.publishEvent(new CommentLikesFlushedEvent(articlePaths));
+            log.debug("点赞数批量写回 {} 条评论", batchArgs.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** 应用关闭前写回所有增量 */
+    @PreDestroy
+    public void shutdown() {
+        // 两次flush：第二次会把第一次换下表中的残余增量一并写回
+        flush();
+        flush();
+    }
+
+    private static long sum(PendingDelta pending) {
+        return pending == null ? 0 : pending.adder.sum();
+    }
+
+    private static final class PendingDelta {
+        private final String articlePath;
+        private final LongAdder adder = new LongAdder();
+
+        private PendingDelta(String articlePath) {
+            this.articlePath = articlePath;
+        }
+    }
+}
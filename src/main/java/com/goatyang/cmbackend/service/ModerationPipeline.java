@@ -0,0 +1,220 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.config.ModerationProperties;
+import com.goatyang.cmbackend.dto.ModerationTask;
+import com.goatyang.cmbackend.event.CommentCreatedEvent;
+import com.goatyang.cmbackend.event.CommentVisibilityChangedEvent;
+import com.goatyang.cmbackend.model.ModerationStatus;
+import com.goatyang.cmbackend.repository.CommentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 评论审核流水线
+ * 评论以待审核状态保存后立即返回，事务提交后放入有界队列，由后台工作线程依次执行各审核阶段
+ * （敏感词/正则、相同内容、单用户突发），结果按批用一条JDBC批处理写回，不增加发评论的延迟。
+ * 背压：队列满时不阻塞发评论的线程，评论保持待审核，由定时补扫任务在队列有空间时从数据库重新入队；
+ * 应用重启时队列中未处理的评论同样由补扫任务接管。
+ * 先发后审：待审核的评论照常展示；被标记的评论从公开的列表、评论树、回复、热门榜、评论数中排除，
+ * 并通过可见性变化事件通知缓存与实时推送，由管理员审核通过（恢复展示）或删除
+ */
+@Slf4j
+@Component
+public class ModerationPipeline {
+
+    private static final String UPDATE_SQL = "UPDATE comment SET moderation_status = ?, moderation_reason = ? " +
+            "WHERE comment_id = ? AND moderation_status = 'PENDING'";
+
+    private final ModerationProperties properties;
+    private final List<ModerationStage> stages;
+    private final CommentRepository commentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<ModerationTask> queue;
+    private final ExecutorService workers;
+
+    private final List<Timer> stageTimers = new ArrayList<>();
+    private final List<Counter> stageFlagged = new ArrayList<>();
+    private final Counter approved;
+    private final Counter rejectedByQueue;
+    private final Counter resubmitted;
+
+    public ModerationPipeline(ModerationProperties properties,
+                              List<ModerationStage> stages,
+                              CommentRepository commentRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.stages = List.copyOf(stages);
+        this.commentRepository = commentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.workers = Executors.newFixedThreadPool(properties.workers(),
+                new CustomizableThreadFactory("comment-moderation-"));
+
+        for (ModerationStage stage : this.stages) {
+            stageTimers.add(Timer.builder("cmbackend.moderation.stage")
+                    .description("审核阶段耗时")
+                    .tag("stage", stage.name())
+                    .register(meterRegistry));
+            stageFlagged.add(Counter.builder("cmbackend.moderation.flagged")
+                    .description("被各审核阶段标记的评论数")
+                    .tag("stage", stage.name())
+                    .register(meterRegistry));
+        }
+        this.approved = Counter.builder("cmbackend.moderation.approved")
+                .description("审核通过的评论数")
+                .register(meterRegistry);
+        this.rejectedByQueue = Counter.builder("cmbackend.moderation.queue.rejected")
+                .description("审核队列已满、留待补扫的评论数")
+                .register(meterRegistry);
+        this.resubmitted = Counter.builder("cmbackend.moderation.resubmitted")
+                .description("补扫任务重新入队的待审核评论数")
+                .register(meterRegistry);
+        Gauge.builder("cmbackend.moderation.queue.size", queue, BlockingQueue::size)
+                .description("审核队列中等待处理的评论数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < properties.workers(); i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /** 新评论事务提交后入队，队列满时留给补扫任务 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        if (event.comment() == null) {
+            return;
+        }
+        ModerationTask task = new ModerationTask(event.commentId(), event.userId(), event.articlePath(),
+                event.comment().comment().content(), event.comment().comment().createdAt());
+        if (!queue.offer(task)) {
+            rejectedByQueue.increment();
+        }
+    }
+
+    /**
+     * 补扫：把创建超过一个补扫间隔仍待审核的评论重新入队，最多填满队列剩余容量的一半，
+     * 为新评论留出空间；同一评论若被重复处理，写回时按状态条件更新，只生效一次
+     */
+    @Scheduled(fixedDelayString = "${cmbackend.moderation.sweep-interval:1m}")
+    public void sweep() {
+        int room = queue.remainingCapacity() / 2;
+        if (room == 0) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minus(properties.sweepInterval());
+        List<ModerationTask> pending = commentRepository.findPendingModeration(before, Limit.of(room));
+        int offered = 0;
+        for (ModerationTask task : pending) {
+            if (!queue.offer(task)) {
+                break;
+            }
+            offered++;
+        }
+        if (offered > 0) {
+            resubmitted.increment(offered);
+            log.info("重新入队待审核评论 {} 条", offered);
+        }
+    }
+
+    private void work() {
+        List<ModerationTask> batch = new ArrayList<>(properties.batchSize());
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, properties.batchSize() - 1);
+            try {
+                apply(batch);
+            } catch (RuntimeException e) {
+                // 评论保持待审核，由补扫任务重试
+                log.warn("评论审核结果写回失败，{} 条评论将由补扫任务重试", batch.size(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * 对一批评论执行各审核阶段，并用一条批处理语句写回结果；
+     * 提交后为本次实际被标记（此前仍待审核）的评论发布隐藏事件
+     */
+    private void apply(List<ModerationTask> batch) {
+        List<Object[]> updates = new ArrayList<>(batch.size());
+        boolean[] flagged = new boolean[batch.size()];
+        int approvedCount = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            ModerationTask task = batch.get(i);
+            String reason = moderate(task);
+            if (reason == null) {
+                updates.add(new Object[]{ModerationStatus.APPROVED.name(), null, task.commentId()});
+                approvedCount++;
+            } else {
+                updates.add(new Object[]{ModerationStatus.FLAGGED.name(), reason, task.commentId()});
+                flagged[i] = true;
+            }
+        }
+        int[] updated = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, updates));
+        approved.increment(approvedCount);
+        for (int i = 0; i < batch.size(); i++) {
+            // 驱动无法给出逐条更新行数时（SUCCESS_NO_INFO）同样发布，重复隐藏是幂等的
+            if (flagged[i] && updated != null && updated[i] != 0) {
+                ModerationTask task = batch.get(i);
+                eventPublisher.publishEvent(
+                        new CommentVisibilityChangedEvent(task.commentId(), task.articlePath(), false));
+            }
+        }
+    }
+
+    /** 依次执行审核阶段，返回第一个标记原因（"阶段名:原因"），全部通过返回null */
+    private String moderate(ModerationTask task) {
+        for (int i = 0; i < stages.size(); i++) {
+            ModerationStage stage = stages.get(i);
+            String reason = stageTimers.get(i).record(() -> stage.check(task));
+            if (reason != null) {
+                stageFlagged.get(i).increment();
+                String flagged = stage.name() + ":" + reason;
+                return flagged.length() > 255 ? flagged.substring(0, 255) : flagged;
+            }
+        }
+        return null;
+    }
+}
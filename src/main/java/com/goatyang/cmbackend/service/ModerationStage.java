@@ -0,0 +1,20 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.dto.ModerationTask;
+
+/**
+ * 评论审核阶段
+ * 由审核流水线的工作线程按顺序调用，实现需线程安全；某个阶段标记评论后，后续阶段不再执行
+ */
+public interface ModerationStage {
+
+    /** 阶段名，用作指标标签与标记原因前缀 */
+    String name();
+
+    /**
+     * 检查评论
+     *
+     * @return 通过时返回null，否则返回标记原因
+     */
+    String check(ModerationTask task);
+}
@@ -0,0 +1,122 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.dto.CommentRef;
+import com.goatyang.cmbackend.event.UserContentDeletedEvent;
+import com.goatyang.cmbackend.repository.CommentLikeRepository;
+import com.goatyang.cmbackend.repository.CommentRepository;
+import com.goatyang.cmbackend.repository.UserRepository;
+import com.goatyang.cmbackend.util.CommentPaths;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户级联删除服务
+ * 在一个事务内用批量JPQL删除用户的点赞、其评论下的点赞、评论以及用户本身，
+ * 点赞数修正为一条UPDATE语句，语句数量与用户的评论/点赞数量无关；
+ * 其他用户对该用户评论的回复一并删除
+ */
+@Service
+@Timed(value = "cmbackend.service", histogram = true)
+@RequiredArgsConstructor
+public class UserCascadeDeleteService {
+
+    private final UserRepository userRepository;
+    private final CommentRepository commentRepository;
+    private final CommentLikeRepository commentLikeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** 删除用户（级联删除评论及点赞） */
+    @Transactional
+    public Map<String, Object> deleteUserCascade(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("用户不存在，ID: " + userId);
+        }
+
+        // 记录受影响的评论与文章，事务提交后通知缓存等监听者
+        List<CommentRef> comments = commentRepository.findRefsByUserId(userId);
+        Set<String> articlePaths = new HashSet<>(commentLikeRepository.findLikedArticlePathsByUserId(userId));
+        comments.forEach(c -> articlePaths.add(c.articlePath()));
+        // 其他用户对该用户评论的回复随之删除，并修正剩余祖先评论的回复数
+        List<Long> replyIds = deleteRepliesUnder(comments);
+
+        // 扣减该用户点赞过的评论的点赞数，然后删除该用户的点赞
+        int likeCountsCorrected = commentRepository.decrementLikeCountsLikedByUser(userId);
+        int likesDeleted = commentLikeRepository.deleteByUserId(userId);
+
+        // 删除该用户评论下的点赞以及评论本身
+        int commentLikesDeleted = commentLikeRepository.deleteByCommentUserId(userId);
+        int commentsDeleted = commentRepository.deleteByUserId(userId);
+
+        userRepository.deleteById(userId);
+
+        List<Long> deletedIds = new ArrayList<>(replyIds);
+        comments.forEach(c -> deletedIds.add(c.commentId()));
+        eventPublisher.publishEvent(new UserContentDeletedEvent(userId, deletedIds, articlePaths));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("likesDeleted", likesDeleted);
+        result.put("likeCountsCorrected", likeCountsCorrected);
+        result.put("commentLikesDeleted", commentLikesDeleted);
+        result.put("commentsDeleted", commentsDeleted);
+        result.put("repliesDeleted", replyIds.size());
+        result.put("userDeleted", userId);
+        return result;
+    }
+
+    /**
+     * 删除该用户评论下其他用户的回复，并按删除的后代数扣减剩余祖先评论的回复数
+     * 一次查询取出受影响楼层内全部回复的物化路径，在内存中判断归属；扣减按差值分组，每种差值一条UPDATE
+     *
+     * @return 被删除的回复ID（不含该用户自己的评论）
+     */
+    private List<Long> deleteRepliesUnder(List<CommentRef> userComments) {
+        if (userComments.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> userCommentIds = new HashSet<>();
+        Set<Long> rootIds = new HashSet<>();
+        for (CommentRef comment : userComments) {
+            userCommentIds.add(comment.commentId());
+            rootIds.add(CommentPaths.rootId(comment.path(), comment.commentId()));
+        }
+        List<CommentRef> threadComments = new ArrayList<>(userComments);
+        List<Long> replyIds = new ArrayList<>();
+        for (CommentRef reply : commentRepository.findReplyRefsByRootIds(rootIds)) {
+            if (!userCommentIds.contains(reply.commentId())
+                    && CommentPaths.ancestorIds(reply.path()).stream().anyMatch(userCommentIds::contains)) {
+                replyIds.add(reply.commentId());
+                threadComments.add(reply);
+            }
+        }
+
+        Set<Long> deleted = new HashSet<>(userCommentIds);
+        deleted.addAll(replyIds);
+        Map<Long, Long> decrements = new HashMap<>();
+        for (CommentRef comment : threadComments) {
+            for (Long ancestorId : CommentPaths.ancestorIds(comment.path())) {
+                if (!deleted.contains(ancestorId)) {
+                    decrements.merge(ancestorId, 1L, Long::sum);
+                }
+            }
+        }
+        Map<Long, List<Long>> byDelta = new HashMap<>();
+        decrements.forEach((commentId, delta) -> byDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(commentId));
+        byDelta.forEach((delta, commentIds) -> commentRepository.decrementReplyCounts(commentIds, delta));
+
+        if (!replyIds.isEmpty()) {
+            commentLikeRepository.deleteByCommentIds(replyIds);
+            commentRepository.deleteByCommentIds(replyIds);
+        }
+        return replyIds;
+    }
+}
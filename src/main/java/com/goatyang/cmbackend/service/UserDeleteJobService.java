@@ -0,0 +1,85 @@
+package com.goatyang.cmbackend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 用户级联删除后台任务
+ * 删除评论/点赞较多的用户时提交到后台执行，管理端通过任务ID查询进度，避免请求超时
+ */
+@Slf4j
+@Service
+public class UserDeleteJobService {
+
+    private final UserCascadeDeleteService userCascadeDeleteService;
+    private final AsyncTaskExecutor taskExecutor;
+    // 任务状态只保留一段时间，容量有界
+    private final Cache<String, UserDeleteJob> jobs = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofHours(24))
+            .build();
+
+    public UserDeleteJobService(UserCascadeDeleteService userCascadeDeleteService,
+                                @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor) {
+        this.userCascadeDeleteService = userCascadeDeleteService;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /** 提交删除任务，返回任务初始状态 */
+    public UserDeleteJob submit(Long userId) {
+        String jobId = UUID.randomUUID().toString();
+        UserDeleteJob job = new UserDeleteJob(jobId, userId, JobStatus.PENDING, null, null,
+                LocalDateTime.now(), null);
+        jobs.put(jobId, job);
+
+        taskExecutor.execute(() -> {
+            jobs.put(jobId, job.withStatus(JobStatus.RUNNING));
+            try {
+                Map<String, Object> result = userCascadeDeleteService.deleteUserCascade(userId);
+                jobs.put(jobId, job.finish(JobStatus.SUCCEEDED, result, null));
+            } catch (RuntimeException e) {
+                log.warn("用户级联删除任务失败，jobId={}, userId={}", jobId, userId, e);
+                jobs.put(jobId, job.finish(JobStatus.FAILED, null, e.getMessage()));
+            }
+        });
+        return job;
+    }
+
+    /** 查询任务状态 */
+    public Optional<UserDeleteJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    public enum JobStatus {
+        PENDING, RUNNING, SUCCEEDED, FAILED
+    }
+
+    /**
+     * 用户删除任务状态
+     *
+     * @param result 成功时的删除统计
+     * @param error  失败原因
+     */
+    public record UserDeleteJob(String jobId, Long userId, JobStatus status,
+                                Map<String, Object> result, String error,
+                                LocalDateTime submittedAt, LocalDateTime finishedAt) {
+
+        UserDeleteJob withStatus(JobStatus status) {
+            return new UserDeleteJob(jobId, userId, status, result, error, submittedAt, finishedAt);
+        }
+
+        UserDeleteJob finish(JobStatus status, Map<String, Object> result, String error) {
+            return new UserDeleteJob(jobId, userId, status, result, error, submittedAt, LocalDateTime.now());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.goatyang.cmbackend.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.goatyang.cmbackend.config.ReadWriteRoutingDataSource;
+import com.goatyang.cmbackend.dto.UserIdentity;
+import com.goatyang.cmbackend.event.UserContentDeletedEvent;
+import com.goatyang.cmbackend.event.UserIdentityChangedEvent;
+import com.goatyang.cmbackend.repository.UserRepository;
+import com.goatyang.cmbackend.util.CacheLoads;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 用户身份缓存
+ * 以 githubId 为键缓存活跃用户的身份快照，容量有界并带TTL；
+ * 用户不存在时不缓存，权限修改、删除、重新登录提交后立即失效对应条目
+ */
+@Component
+public class UserIdentityCache implements MeterBinder {
+
+    private final UserRepository userRepository;
+    private final AsyncCache<Long, UserIdentity> cache;
+
+    public UserIdentityCache(UserRepository userRepository,
+                             @Value("${cmbackend.user-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${cmbackend.user-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /** 根据GitHub ID获取用户身份，未命中时查询数据库 */
+    public Optional<UserIdentity> get(Long githubId) {
+        if (githubId == null) {
+            return Optional.empty();
+        }
+        // 从主库加载：从库上的旧快照会让刚撤销的权限在TTL内重新生效
+        return Optional.ofNullable(CacheLoads.getOrLoad(cache, githubId, id -> ReadWriteRoutingDataSource.onPrimary(() ->
+                userRepository.findByGithubId(id).map(UserIdentity::of).orElse(null))));
+    }
+
+    /** 根据GitHub ID获取用户身份，用户不存在时抛出异常 */
+    public UserIdentity require(Long githubId) {
+        return get(githubId).orElseThrow(() -> new IllegalArgumentException("用户不存在"));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "user-identity");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserIdentityChanged(UserIdentityChangedEvent event) {
+        cache.synchronous().invalidate(event.githubId());
+    }
+
+    /** 级联删除事件只带本地用户ID，按值扫描失效 */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserContentDeleted(UserContentDeletedEvent event) {
+        cache.synchronous().asMap().values().removeIf(identity -> identity.id().equals(event.userId()));
+    }
+}
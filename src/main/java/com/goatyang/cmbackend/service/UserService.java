@@ -1,10 +1,13 @@
 package com.goatyang.cmbackend.service;
 
+import com.goatyang.cmbackend.event.UserIdentityChangedEvent;
 import com.goatyang.cmbackend.model.User;
 import com.goatyang.cmbackend.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,36 +17,44 @@ import java.util.Optional;
  * 封装用户相关的业务逻辑
  */
 @Service
+@Timed(value = "cmbackend.service", histogram = true)
 public class UserService {
 
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /** 查询所有用户 */
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
     /** 根据ID查询用户 */
+    @Transactional(readOnly = true)
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
     }
 
     /** 根据GitHub ID查询用户 */
+    @Transactional(readOnly = true)
     public Optional<User> getUserByGithubId(Long githubId) {
         return userRepository.findByGithubId(githubId);
     }
 
     /** 根据邮箱查询用户 */
+    @Transactional(readOnly = true)
     public Optional<User> getUserByEmail(String email) {
         return userRepository.findByEmail(email);
     }
 
     /** 根据用户名查询用户 */
+    @Transactional(readOnly = true)
     public Optional<User> getUserByUsername(String username) {
         return userRepository.findByUsername(username);
     }
@@ -54,7 +65,10 @@ public class UserService {
         return userRepository.findById(id)
                 .map(user -> {
                     user.setComPermissions(userDetails.getComPermissions());
-                    return userRepository.save(user);
+                    User saved = userRepository.save(user);
+                    // 提交后失效身份缓存，权限撤销立即生效
+                    eventPublisher.publishEvent(new UserIdentityChangedEvent(saved.getGithubId()));
+                    return saved;
                 })
                 .orElseThrow(() -> new IllegalArgumentException("用户不存在，ID: " + id));
     }
@@ -62,9 +76,9 @@ public class UserService {
     /** 删除用户 */
     @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new IllegalArgumentException("用户不存在，ID: " + id);
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("用户不存在，ID: " + id));
+        userRepository.delete(user);
+        eventPublisher.publishEvent(new UserIdentityChangedEvent(user.getGithubId()));
     }
 }
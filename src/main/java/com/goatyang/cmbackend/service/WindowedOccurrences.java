@@ -0,0 +1,43 @@
+package com.goatyang.cmbackend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按键统计时间窗口内出现过的评论数（同一评论重复记录只算一次）
+ * 记录顺序不一定是时间顺序（导入的历史评论、多线程并发提交），按时间戳逐条清理窗口外的记录；
+ * 键在窗口内无新记录时整体过期，容量有界
+ */
+final class WindowedOccurrences<K> {
+
+    private final long windowMillis;
+    // 键 -> (评论ID -> 记录时间戳)
+    private final Cache<K, Map<Long, Long>> occurrences;
+
+    WindowedOccurrences(Duration window, long maximumKeys) {
+        this.windowMillis = window.toMillis();
+        this.occurrences = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(window)
+                .build();
+    }
+
+    /**
+     * 记录一条评论，返回窗口内（含本条）该键下的评论数
+     */
+    int record(K key, Long commentId, LocalDateTime createdAt) {
+        long now = createdAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+        Map<Long, Long> times = occurrences.get(key, k -> new HashMap<>());
+        synchronized (times) {
+            times.values().removeIf(time -> time <= now - windowMillis);
+            times.putIfAbsent(commentId, now);
+            return times.size();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.goatyang.cmbackend.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho–Corasick 多模式匹配自动机
+ * 构建后不可变、线程安全；一次扫描文本即可找出任意关键词，耗时与文本长度成正比，与关键词数量无关
+ */
+public final class AhoCorasick {
+
+    // 每个状态的转移表、失败指针与命中的关键词（该状态本身的，或失败链上最近的一个）
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    private final List<Integer> failures = new ArrayList<>();
+    private final List<String> outputs = new ArrayList<>();
+
+    public AhoCorasick(Collection<String> keywords) {
+        newState();
+        for (String keyword : keywords) {
+            if (keyword == null || keyword.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                Integer next = transitions.get(state).get(c);
+                if (next == null) {
+                    next = newState();
+                    transitions.get(state).put(c, next);
+                }
+                state = next;
+            }
+            outputs.set(state, keyword);
+        }
+        buildFailures();
+    }
+
+    /** 是否没有任何关键词 */
+    public boolean isEmpty() {
+        return transitions.get(0).isEmpty();
+    }
+
+    /** 返回文本中第一个结束位置最靠前的关键词，没有命中返回null */
+    public String findFirst(CharSequence text) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            if (outputs.get(state) != null) {
+                return outputs.get(state);
+            }
+        }
+        return null;
+    }
+
+    private int next(int state, char c) {
+        while (true) {
+            Integer next = transitions.get(state).get(c);
+            if (next != null) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = failures.get(state);
+        }
+    }
+
+    /** 按层次遍历计算失败指针，并把失败链上的命中合并到当前状态 */
+    private void buildFailures() {
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : transitions.get(0).values()) {
+            failures.set(child, 0);
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> edge : transitions.get(state).entrySet()) {
+                int child = edge.getValue();
+                int failure = next(failures.get(state), edge.getKey());
+                failures.set(child, failure);
+                if (outputs.get(child) == null) {
+                    outputs.set(child, outputs.get(failure));
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    private int newState() {
+        transitions.add(new HashMap<>());
+        failures.add(0);
+        outputs.add(null);
+        return transitions.size() - 1;
+    }
+}
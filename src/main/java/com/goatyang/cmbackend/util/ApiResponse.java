@@ -1,5 +1,6 @@
 package com.goatyang.cmbackend.util;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 
 @Getter
@@ -8,6 +9,9 @@ public class ApiResponse<T> {
     private int code;
     private String message;
     private T data;
+    // 游标分页时的下一页游标，非分页接口不输出该字段
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 
     public ApiResponse(int code, String message, T data) {
         this.code = code;
@@ -19,7 +23,13 @@ public class ApiResponse<T> {
         return new ApiResponse<>(200, "操作成功", data);
     }
 
+    public static <T> ApiResponse<T> success(T data, String nextCursor) {
+        ApiResponse<T> response = success(data);
+        response.nextCursor = nextCursor;
+        return response;
+    }
+
     public static <T> ApiResponse<T> error(int code, String message) {
         return new ApiResponse<>(code, message, null);
     }
-}
\ No newline at end of file
+}
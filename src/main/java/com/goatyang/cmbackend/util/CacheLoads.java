@@ -0,0 +1,51 @@
+package com.goatyang.cmbackend.util;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * 缓存加载工具
+ * Cache.get(key, loader) 会在 ConcurrentHashMap 的 compute 锁（synchronized）内执行loader，
+ * 虚拟线程在其中等待数据库连接或I/O时会固定载体线程。这里改为先放入占位 future、
+ * 在锁外由调用线程加载：同一key并发未命中时只加载一次，其余线程等待同一个 future；
+ * 加载期间条目被失效时，结果不会写回缓存
+ */
+public final class CacheLoads {
+
+    private CacheLoads() {
+    }
+
+    /**
+     * 读取缓存，未命中时在调用线程上加载
+     * loader 返回null时不缓存，直接返回null
+     */
+    public static <K, V> V getOrLoad(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> existing = cache.getIfPresent(key);
+        if (existing == null) {
+            CompletableFuture<V> loading = new CompletableFuture<>();
+            existing = cache.asMap().putIfAbsent(key, loading);
+            if (existing == null) {
+                try {
+                    // 以null完成的future会被缓存自动移除
+                    loading.complete(loader.apply(key));
+                } catch (RuntimeException | Error e) {
+                    cache.asMap().remove(key, loading);
+                    loading.completeExceptionally(e);
+                    throw e;
+                }
+                return loading.join();
+            }
+        }
+        try {
+            return existing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.goatyang.cmbackend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 评论物化路径工具
+ * 路径为从楼层（顶层评论）到父评论的祖先ID链，形如 "/12/45/"，楼层本身的路径为null
+ */
+public final class CommentPaths {
+
+    private static final char SEPARATOR = '/';
+
+    private CommentPaths() {
+    }
+
+    /** 子评论的路径（即该评论全部后代路径的公共前缀） */
+    public static String childPath(String path, Long commentId) {
+        return (path == null ? String.valueOf(SEPARATOR) : path) + commentId + SEPARATOR;
+    }
+
+    /** 祖先评论ID，从楼层到父评论 */
+    public static List<Long> ancestorIds(String path) {
+        List<Long> ids = new ArrayList<>();
+        if (path == null) {
+            return ids;
+        }
+        int start = 1;
+        for (int i = 1; i < path.length(); i++) {
+            if (path.charAt(i) == SEPARATOR) {
+                ids.add(Long.parseLong(path, start, i, 10));
+                start = i + 1;
+            }
+        }
+        return ids;
+    }
+
+    /** 评论所属楼层的ID，楼层本身返回自己的ID */
+    public static Long rootId(String path, Long commentId) {
+        if (path == null) {
+            return commentId;
+        }
+        return Long.parseLong(path, 1, path.indexOf(SEPARATOR, 1), 10);
+    }
+
+    /** 回复层级，楼层为0 */
+    public static int depth(String path) {
+        if (path == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == SEPARATOR) {
+                count++;
+            }
+        }
+        return count - 1;
+    }
+}
@@ -0,0 +1,111 @@
+package com.goatyang.cmbackend.util;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 评论全文检索分词
+ * 中日韩文字没有空格分词，连续的中日韩字符按相邻二元组切分（"点赞数" -> "点赞"、"赞数"），
+ * 单独出现的一个字保留为一元组；字母与数字按连续串切分并转小写；其余字符视为分隔符。
+ * 索引时每个中日韩字符另外作为一元组加入，单字查询（"赞"）也能命中词中间的字；
+ * 查询的全部词项都命中即视为匹配
+ */
+public final class CommentTokenizer {
+
+    /** 超过该长度的字母数字串（如长链接、编码数据）不进入索引 */
+    private static final int MAX_WORD_LENGTH = 40;
+
+    private CommentTokenizer() {
+    }
+
+    /** 文本的词项（去重，保持出现顺序），用于查询与内容指纹 */
+    public static Set<String> terms(String text) {
+        return tokenize(text, false);
+    }
+
+    /** 建索引用的词项：在 terms 的基础上加入每个中日韩字符的一元组 */
+    public static Set<String> indexTerms(String text) {
+        return tokenize(text, true);
+    }
+
+    private static Set<String> tokenize(String text, boolean cjkUnigrams) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (isCjk(codePoint)) {
+                int end = i;
+                while (end < length && isCjk(text.codePointAt(end))) {
+                    end += Character.charCount(text.codePointAt(end));
+                }
+                addCjkTerms(text, i, end, cjkUnigrams, terms);
+                i = end;
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int end = i;
+                while (end < length && isWordPart(text.codePointAt(end))) {
+                    end += Character.charCount(text.codePointAt(end));
+                }
+                if (end - i <= MAX_WORD_LENGTH) {
+                    terms.add(text.substring(i, end).toLowerCase(Locale.ROOT));
+                }
+                i = end;
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 归一化文本：转小写并去掉空白、标点与符号，只保留文字和数字，
+     * 用于敏感词匹配与相同内容比较（"加 微 信！" 与 "加微信" 视为相同）
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(text.length());
+        text.codePoints()
+                .filter(Character::isLetterOrDigit)
+                .map(Character::toLowerCase)
+                .forEach(builder::appendCodePoint);
+        return builder.toString();
+    }
+
+    private static void addCjkTerms(String text, int start, int end, boolean unigrams, Set<String> terms) {
+        if (unigrams) {
+            for (int i = start; i < end; i += Character.charCount(text.codePointAt(i))) {
+                terms.add(text.substring(i, i + Character.charCount(text.codePointAt(i))));
+            }
+        }
+        int first = start;
+        int second = first + Character.charCount(text.codePointAt(first));
+        if (second >= end) {
+            terms.add(text.substring(start, end));
+            return;
+        }
+        while (second < end) {
+            int next = second + Character.charCount(text.codePointAt(second));
+            terms.add(text.substring(first, next));
+            first = second;
+            second = next;
+        }
+    }
+
+    private static boolean isWordPart(int codePoint) {
+        return Character.isLetterOrDigit(codePoint) && !isCjk(codePoint);
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
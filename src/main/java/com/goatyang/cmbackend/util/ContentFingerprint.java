@@ -0,0 +1,75 @@
+package com.goatyang.cmbackend.util;
+
+/**
+ * 评论内容指纹
+ * contentHash 是归一化正文（见 CommentTokenizer.normalize）的64位哈希，相同即视为完全重复；
+ * simhash 以正文词项（中文二元组、英文单词）为特征计算，相近的内容汉明距离小。
+ * simhash 切成6段（每段10~11位）分别建索引：汉明距离不超过5的两条评论至少有一段完全相同（抽屉原理），
+ * 查找近似重复只需按6个段值查索引，再按汉明距离过滤候选。
+ * 评论较短，轻微改动（换几个字、加后缀）的距离通常在5以内，无关内容一般在20以上
+ *
+ * @param length 归一化正文的长度，过短的内容指纹区分度低
+ */
+public record ContentFingerprint(long contentHash, long simhash, int length) {
+
+    /** simhash 的分段数，可保证找到的最大汉明距离为 BANDS - 1 */
+    public static final int BANDS = 6;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    public static ContentFingerprint of(String content) {
+        String normalized = CommentTokenizer.normalize(content);
+        return new ContentFingerprint(hash(normalized), simhash(content), normalized.length());
+    }
+
+    /** 第 index 段的值（段内各位，0 ~ 2047） */
+    public int band(int index) {
+        int from = index * Long.SIZE / BANDS;
+        int to = (index + 1) * Long.SIZE / BANDS;
+        return (int) ((simhash >>> from) & ((1L << (to - from)) - 1));
+    }
+
+    /** 与另一个 simhash 的汉明距离 */
+    public int distance(long otherSimhash) {
+        return Long.bitCount(simhash ^ otherSimhash);
+    }
+
+    /** FNV-1a 64位哈希 */
+    public static long hash(CharSequence text) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /** 每个词项的哈希按位投票，多数为1的位取1；没有词项时为0 */
+    private static long simhash(String content) {
+        int[] votes = new int[Long.SIZE];
+        for (String term : CommentTokenizer.terms(content)) {
+            long hash = mix(hash(term));
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                votes[bit] += (hash >>> bit & 1) == 1 ? 1 : -1;
+            }
+        }
+        long simhash = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (votes[bit] > 0) {
+                simhash |= 1L << bit;
+            }
+        }
+        return simhash;
+    }
+
+    /** 打散短词项FNV哈希的高位（MurmurHash3 fmix64），使各位的投票接近独立 */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93e32b6c5d5L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
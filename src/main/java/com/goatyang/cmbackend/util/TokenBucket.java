@@ -0,0 +1,50 @@
+package com.goatyang.cmbackend.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶
+ * 按 GCRA 算法实现：只保存一个“理论到达时间”，每取一个令牌向后推进一个发放间隔，
+ * 推进后超出当前时间一个完整周期即为桶空。状态只有一个 AtomicLong，用CAS更新，不加锁
+ */
+public final class TokenBucket {
+
+    /** 每个令牌的发放间隔（纳秒） */
+    private final long emissionIntervalNanos;
+    /** 桶容量对应的时长（纳秒），即允许的最大突发 */
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param capacity    桶容量（允许的突发请求数）
+     * @param periodNanos 桶从空到满所需时间
+     * @param nowNanos    创建时刻，新桶是满的
+     */
+    public TokenBucket(long capacity, long periodNanos, long nowNanos) {
+        if (capacity <= 0 || periodNanos <= 0) {
+            throw new IllegalArgumentException("令牌桶容量与周期必须大于0");
+        }
+        this.emissionIntervalNanos = Math.max(periodNanos / capacity, 1);
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * 尝试取一个令牌
+     *
+     * @return 0 表示成功；否则为还需等待的纳秒数（失败时不消耗令牌）
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            long waitNanos = next - nowNanos - burstNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.goatyang.cmbackend.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Actuator 端点的访问控制：健康检查公开，Prometheus 指标只对抓取网段开放
+ */
+@SpringBootTest(properties = "cmbackend.metrics.scrape-networks=127.0.0.1/32, 10.0.0.0/8")
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class ActuatorSecurityTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    }
+
+    @Test
+    void healthIsPublic() throws Exception {
+        mockMvc.perform(get("/actuator/health").with(from("203.0.113.7")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void prometheusIsOnlyServedToScrapeNetworks() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(from("127.0.0.1")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/prometheus").with(from("10.1.2.3")))
+                .andExpect(status().isOk());
+        // 公网地址与转发头都不能绕过网段限制
+        mockMvc.perform(get("/actuator/prometheus").with(from("203.0.113.7")).header("X-Forwarded-For", "127.0.0.1"))
+                .andExpect(status().is3xxRedirection());
+    }
+
+    private static RequestPostProcessor from(String remoteAddr) {
+        return request -> {
+            request.setRemoteAddr(remoteAddr);
+            return request;
+        };
+    }
+}
@@ -0,0 +1,142 @@
+package com.goatyang.cmbackend.config;
+
+import com.goatyang.cmbackend.dto.CommentView;
+import com.goatyang.cmbackend.model.User;
+import com.goatyang.cmbackend.repository.UserRepository;
+import com.goatyang.cmbackend.service.CommentLikeService;
+import com.goatyang.cmbackend.service.CommentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 用两个独立的H2内存库模拟主库与从库（从库只有表结构、没有数据，相当于复制无限延迟）：
+ * 写入只落到主库，只读查询走从库，刚写入的客户端在读己之写窗口内读主库；
+ * 共享缓存始终从主库加载
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "cmbackend.datasource.replica.jdbc-url=jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "cmbackend.datasource.replica.username=sa",
+        "cmbackend.datasource.read-your-writes-window=500ms",
+        "cmbackend.hot-comments.warm-articles=0"
+})
+@ActiveProfiles("test")
+class ReadWriteRoutingTest {
+
+    private static final String ARTICLE = "routing-article";
+    private static final String CACHED_ARTICLE = "routing-cached-article";
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CommentLikeService commentLikeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    private Long githubId;
+
+    @BeforeEach
+    void setUp() {
+        // 从库复制主库的表结构
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("DROP ALL OBJECTS");
+        new JdbcTemplate(primary).queryForList("SCRIPT NODATA", String.class).stream()
+                .filter(sql -> !sql.startsWith("CREATE USER"))
+                .forEach(replicaJdbc::execute);
+
+        User user = new User();
+        user.setGithubId(System.nanoTime());
+        user.setUsername("routing-user");
+        githubId = userRepository.save(user).getGithubId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        readYourWritesTracker.clear();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicaUnlessClientJustWrote() throws Exception {
+        readYourWritesTracker.bind("writer");
+        CommentView created = commentService.createComment(githubId, ARTICLE, "routed");
+
+        assertEquals(1, count(primary), "写入应落到主库");
+        assertEquals(0, count(replica), "写入不应落到从库");
+
+        // 刚写入的客户端在窗口内读主库
+        assertEquals(List.of(created.commentId()), firstPageIds());
+
+        // 其他客户端读从库（从库尚未复制到该评论）
+        readYourWritesTracker.bind("reader");
+        assertTrue(firstPageIds().isEmpty());
+
+        // 窗口过后写入者也读从库
+        readYourWritesTracker.bind("writer");
+        Thread.sleep(600);
+        assertTrue(firstPageIds().isEmpty());
+    }
+
+    @Test
+    void sharedFirstPageCacheIsLoadedFromPrimary() {
+        readYourWritesTracker.bind("writer");
+        CommentView created = commentService.createComment(githubId, CACHED_ARTICLE, "cached");
+
+        // 写入提交后第一页缓存被失效，由其他客户端的读取重新加载：从从库加载会缓存不含新评论的第一页
+        readYourWritesTracker.bind("reader");
+        assertEquals(List.of(created.commentId()), cachedFirstPageIds());
+        readYourWritesTracker.bind("writer");
+        assertEquals(List.of(created.commentId()), cachedFirstPageIds());
+    }
+
+    @Test
+    void userIdentityIsLoadedFromPrimary() {
+        // 用户只在主库中，未写入过的客户端读取时身份缓存仍从主库加载
+        readYourWritesTracker.bind("reader");
+        assertTrue(commentLikeService.getLikedCommentIds(githubId, ARTICLE, null).isEmpty());
+    }
+
+    private List<Long> cachedFirstPageIds() {
+        return commentService.getCommentPageByArticlePath(CACHED_ARTICLE, null, CommentService.DEFAULT_PAGE_SIZE)
+                .items().stream()
+                .map(CommentView::commentId)
+                .toList();
+    }
+
+    private List<Long> firstPageIds() {
+        return commentService.getThreadPageByArticlePath(ARTICLE, null, CommentService.DEFAULT_PAGE_SIZE, 0)
+                .items().stream()
+                .map(node -> node.comment().commentId())
+                .toList();
+    }
+
+    private static int count(DataSource dataSource) {
+        Integer count = new JdbcTemplate(dataSource).queryForObject(
+                "SELECT COUNT(*) FROM comment WHERE article_path = ?", Integer.class, ARTICLE);
+        return count == null ? 0 : count;
+    }
+}
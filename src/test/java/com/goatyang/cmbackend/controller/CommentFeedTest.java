@@ -0,0 +1,126 @@
+package com.goatyang.cmbackend.controller;
+
+import com.goatyang.cmbackend.dto.CommentView;
+import com.goatyang.cmbackend.model.ModerationStatus;
+import com.goatyang.cmbackend.model.User;
+import com.goatyang.cmbackend.repository.CommentRepository;
+import com.goatyang.cmbackend.repository.UserRepository;
+import com.goatyang.cmbackend.service.CommentService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 公开评论接口经过完整的安全过滤器链与MVC层返回的内容：
+ * 平铺列表只含楼层，被审核标记的评论不公开展示
+ */
+@SpringBootTest(properties = "cmbackend.moderation.keywords=" + CommentFeedTest.KEYWORD)
+@ActiveProfiles("test")
+class CommentFeedTest {
+
+    static final String KEYWORD = "违禁词";
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private MockMvc mockMvc;
+    private Long githubId;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        User user = new User();
+        user.setGithubId(System.nanoTime());
+        user.setUsername("feed-user");
+        githubId = userRepository.save(user).getGithubId();
+    }
+
+    @Test
+    void flatFeedListsOnlyTopLevelComments() throws Exception {
+        String article = "feed-flat-" + githubId;
+        CommentView root = commentService.createComment(githubId, article, "楼层");
+        commentService.createComment(githubId, article, "回复", root.commentId());
+        CommentView second = commentService.createComment(githubId, article, "第二个楼层");
+
+        mockMvc.perform(get("/api/comments/article/{articlePath}", article))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[*].commentId").value(
+                        contains(second.commentId().intValue(), root.commentId().intValue())));
+
+        // 游标之后的一页同样不含回复
+        String firstPage = mockMvc.perform(get("/api/comments/article/{articlePath}", article).param("limit", "1"))
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(firstPage, "$.nextCursor");
+        mockMvc.perform(get("/api/comments/article/{articlePath}", article).param("cursor", cursor))
+                .andExpect(jsonPath("$.data[*].commentId").value(contains(root.commentId().intValue())));
+    }
+
+    @Test
+    void flaggedCommentsAreHiddenUntilApproved() throws Exception {
+        String article = "feed-flagged-" + githubId;
+        CommentView root = commentService.createComment(githubId, article, "正常楼层");
+        CommentView reply = commentService.createComment(githubId, article, "正常回复", root.commentId());
+        CommentView flaggedReply = commentService.createComment(githubId, article, "含" + KEYWORD + "的回复",
+                root.commentId());
+        CommentView flaggedRoot = commentService.createComment(githubId, article, "含" + KEYWORD + "的楼层");
+
+        awaitModeration(flaggedRoot.commentId(), ModerationStatus.FLAGGED);
+        awaitModeration(flaggedReply.commentId(), ModerationStatus.FLAGGED);
+        awaitModeration(reply.commentId(), ModerationStatus.APPROVED);
+
+        mockMvc.perform(get("/api/comments/article/{articlePath}", article))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[*].commentId").value(contains(root.commentId().intValue())));
+        mockMvc.perform(get("/api/comments/article/{articlePath}/threads", article))
+                .andExpect(jsonPath("$.data[*].comment.commentId").value(contains(root.commentId().intValue())))
+                .andExpect(jsonPath("$.data[0].replies[*].comment.commentId")
+                        .value(contains(reply.commentId().intValue())));
+        mockMvc.perform(get("/api/comments/{commentId}/replies", root.commentId()))
+                .andExpect(jsonPath("$.data[*].comment.commentId").value(contains(reply.commentId().intValue())));
+        mockMvc.perform(get("/api/comments/{commentId}/replies", flaggedRoot.commentId()))
+                .andExpect(jsonPath("$.code").value(404));
+        mockMvc.perform(get("/api/comments/counts").param("articlePaths", article))
+                .andExpect(jsonPath("$.data['" + article + "']").value(2));
+
+        // 审核通过后恢复展示
+        commentService.approveFlaggedComment(flaggedRoot.commentId());
+        mockMvc.perform(get("/api/comments/article/{articlePath}", article))
+                .andExpect(jsonPath("$.data[*].commentId").value(
+                        contains(flaggedRoot.commentId().intValue(), root.commentId().intValue())));
+        mockMvc.perform(get("/api/comments/counts").param("articlePaths", article))
+                .andExpect(jsonPath("$.data['" + article + "']").value(3));
+    }
+
+    private void awaitModeration(Long commentId, ModerationStatus expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (commentRepository.findById(commentId).orElseThrow().getModerationStatus() != expected) {
+            assertTrue(System.currentTimeMillis() < deadline,
+                    "评论 " + commentId + " 未在10秒内审核为 " + expected);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.dto.CommentNode;
+import com.goatyang.cmbackend.dto.CommentText;
+import com.goatyang.cmbackend.event.CommentCreatedEvent;
+import com.goatyang.cmbackend.event.CommentDeletedEvent;
+import com.goatyang.cmbackend.model.Comment;
+import com.goatyang.cmbackend.repository.CommentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 倒排列表求交集（分页、精确总数、已删除文档）与重建期间增量变化的重放
+ */
+class CommentSearchServiceTest {
+
+    private final CommentRepository commentRepository = mock(CommentRepository.class);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private CommentSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        when(commentRepository.findWithUserByIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(CommentSearchServiceTest::comment).toList();
+        });
+        searchService = new CommentSearchService(commentRepository, mock(PlatformTransactionManager.class),
+                new TaskExecutorAdapter(executor), false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void intersectsPostingsNewestFirst() {
+        CommentSearchService.Index index = new CommentSearchService.Index();
+        for (long id = 1; id <= 10; id++) {
+            // 偶数评论含"缓存"，3的倍数含"失效"
+            String content = (id % 2 == 0 ? "缓存 " : "") + (id % 3 == 0 ? "失效 " : "") + "评论" + id;
+            index.add(id, content);
+        }
+
+        assertHits(index.search(Set.of("缓存", "失效"), 0, 10), 1, 6L);
+        assertHits(index.search(Set.of("缓存"), 0, 10), 5, 10L, 8L, 6L, 4L, 2L);
+        assertHits(index.search(Set.of("缓存", "不存在"), 0, 10), 0);
+        // 单字查询命中词中间的字
+        assertHits(index.search(Set.of("存"), 0, 2), 5, 10L, 8L);
+    }
+
+    @Test
+    void pagesWithExactTotal() {
+        CommentSearchService.Index index = new CommentSearchService.Index();
+        for (long id = 1; id <= 7; id++) {
+            index.add(id, "分页");
+        }
+
+        assertHits(index.search(Set.of("分页"), 0, 3), 7, 7L, 6L, 5L);
+        assertHits(index.search(Set.of("分页"), 3, 3), 7, 4L, 3L, 2L);
+        assertHits(index.search(Set.of("分页"), 6, 3), 7, 1L);
+        assertHits(index.search(Set.of("分页"), 9, 3), 7);
+    }
+
+    @Test
+    void skipsDeletedDocuments() {
+        CommentSearchService.Index index = new CommentSearchService.Index();
+        index.add(1L, "删除 测试");
+        index.add(2L, "删除 测试");
+        index.add(3L, "删除");
+        index.remove(2L);
+        index.remove(2L);
+
+        assertHits(index.search(Set.of("删除", "测试"), 0, 10), 1, 1L);
+        assertHits(index.search(Set.of("删除"), 0, 10), 2, 3L, 1L);
+        assertEquals(2, index.documentCount());
+
+        // 删除后重新加入的评论按新文档计
+        index.add(2L, "删除");
+        assertHits(index.search(Set.of("删除"), 0, 10), 3, 2L, 3L, 1L);
+    }
+
+    @Test
+    void replaysChangesMadeDuringRebuild() throws Exception {
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(commentRepository.streamAllTexts()).thenAnswer(invocation -> {
+            scanning.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            // 全量扫描读到的快照：还包含重建期间删除的评论1，不包含重建期间新建的评论3
+            return Stream.of(new CommentText(1L, "重建 快照"), new CommentText(2L, "重建 快照"));
+        });
+
+        assertTrue(searchService.rebuildAsync());
+        assertTrue(scanning.await(10, TimeUnit.SECONDS));
+        searchService.onCommentDeleted(new CommentDeletedEvent(1L, "article"));
+        searchService.onCommentCreated(new CommentCreatedEvent(3L, 1L, "article", node(3L, "重建 期间")));
+        release.countDown();
+        awaitRebuild();
+
+        assertEquals(List.of(2L), ids(searchService.search("快照", 0, 10).items()));
+        assertEquals(List.of(3L, 2L), ids(searchService.search("重建", 0, 10).items()));
+        assertEquals(2, searchService.stats().get("documents"));
+    }
+
+    private void awaitRebuild() throws InterruptedException {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(true, searchService.stats().get("ready"));
+    }
+
+    private static void assertHits(CommentSearchService.Hits hits, long total, Long... commentIds) {
+        assertEquals(total, hits.total());
+        assertEquals(List.of(commentIds), hits.commentIds());
+    }
+
+    private static List<Long> ids(List<Comment> comments) {
+        return comments.stream().map(Comment::getCommentId).toList();
+    }
+
+    private static Comment comment(Long commentId) {
+        Comment comment = new Comment();
+        comment.setCommentId(commentId);
+        return comment;
+    }
+
+    private static CommentNode node(Long commentId, String content) {
+        return new CommentNode(commentId, content, 0L, LocalDateTime.now(), "user", null, null, null, 0L);
+    }
+}
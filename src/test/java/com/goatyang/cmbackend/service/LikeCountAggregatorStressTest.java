@@ -0,0 +1,164 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.model.Comment;
+import com.goatyang.cmbackend.model.User;
+import com.goatyang.cmbackend.repository.CommentLikeRepository;
+import com.goatyang.cmbackend.repository.CommentRepository;
+import com.goatyang.cmbackend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 64个并发点赞者同时点赞同一条评论：逐次 UPDATE 与聚合器累加混合进行，
+ * 校验写回前后的点赞数都不丢失、不重复（两种方式的吞吐量对比见 JMH 的 LikeCountAggregatorBenchmark）；
+ * 经 CommentLikeService 的并发点赞/取消同时覆盖幂等写入、提交后计数与聚合器写回
+ */
+// 关闭定时写回的干扰，由测试显式调用 flush
+@SpringBootTest(properties = "cmbackend.like-aggregator.flush-interval-ms=3600000")
+@ActiveProfiles("test")
+class LikeCountAggregatorStressTest {
+
+    private static final int THREADS = 64;
+    private static final int LIKES_PER_THREAD = 200;
+    // 经服务层点赞时每个线程的重复次数（每次一个事务）
+    private static final int SERVICE_CALLS_PER_THREAD = 20;
+
+    @Autowired
+    private LikeCountAggregator likeCountAggregator;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CommentLikeService commentLikeService;
+
+    @Autowired
+    private CommentLikeRepository commentLikeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+    private Comment comment;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setGithubId(System.nanoTime());
+        user.setUsername("stress-user");
+        user = userRepository.save(user);
+
+        Comment c = new Comment();
+        c.setUser(user);
+        c.setArticlePath("stress-article");
+        c.setContent("hot comment");
+        c.setLikeCount(0L);
+        comment = commentRepository.save(c);
+    }
+
+    @Test
+    void concurrentLikesStayConsistentAcrossFlushes() throws Exception {
+        Long commentId = comment.getCommentId();
+        long expected = (long) THREADS * LIKES_PER_THREAD;
+
+        runConcurrently(LIKES_PER_THREAD, thread -> commentRepository.incrementLikeCount(commentId));
+        assertEquals(expected, likeCountOf(commentId));
+
+        runConcurrently(LIKES_PER_THREAD,
+                thread -> likeCountAggregator.add(commentId, comment.getArticlePath(), 1));
+        // 写回前读取方通过 pendingDelta 看到完整点赞数
+        assertEquals(2 * expected, likeCountOf(commentId) + likeCountAggregator.pendingDelta(commentId));
+
+        likeCountAggregator.flush();
+        likeCountAggregator.flush();
+        assertEquals(2 * expected, likeCountOf(commentId));
+        assertEquals(0, likeCountAggregator.pendingDelta(commentId));
+    }
+
+    @Test
+    void concurrentServiceLikesCountEachUserOnce() throws Exception {
+        Long commentId = comment.getCommentId();
+        // 每个用户由两个线程并发地重复点赞，竞争同一条 (comment_id, user_id) 记录
+        List<Long> likers = new ArrayList<>();
+        for (int i = 0; i < THREADS / 2; i++) {
+            User liker = new User();
+            liker.setGithubId(System.nanoTime());
+            liker.setUsername("stress-liker-" + i);
+            likers.add(userRepository.save(liker).getGithubId());
+        }
+        long expected = likers.size();
+
+        runConcurrently(SERVICE_CALLS_PER_THREAD, thread -> commentLikeService.likeComment(likers.get(thread / 2), commentId));
+        assertEquals(expected, likeCountOf(commentId) + likeCountAggregator.pendingDelta(commentId));
+        assertEquals(expected, commentLikeRepository.countByCommentIdAndIsCanceled(commentId, false));
+
+        likeCountAggregator.flush();
+        assertEquals(expected, likeCountOf(commentId));
+        assertEquals(0, likeCountAggregator.pendingDelta(commentId));
+
+        runConcurrently(SERVICE_CALLS_PER_THREAD, thread -> commentLikeService.unlikeComment(likers.get(thread / 2), commentId));
+        assertEquals(0, likeCountOf(commentId) + likeCountAggregator.pendingDelta(commentId));
+        likeCountAggregator.flush();
+        assertEquals(0, likeCountOf(commentId));
+    }
+
+    @Test
+    void rolledBackLikeLeavesNoPendingDelta() {
+        Long commentId = comment.getCommentId();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertEquals(1L, commentLikeService.likeComment(user.getGithubId(), commentId).get("likeCount"));
+            status.setRollbackOnly();
+        });
+        assertEquals(0, likeCountAggregator.pendingDelta(commentId));
+
+        commentLikeService.likeComment(user.getGithubId(), commentId);
+        assertEquals(1, likeCountAggregator.pendingDelta(commentId));
+    }
+
+    private long likeCountOf(Long commentId) {
+        return commentRepository.findById(commentId).orElseThrow().getLikeCount();
+    }
+
+    /** THREADS 个线程同时开始，每个线程执行 times 次，参数为线程序号 */
+    private void runConcurrently(int times, IntConsumer like) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < times; i++) {
+                        like.accept(thread);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
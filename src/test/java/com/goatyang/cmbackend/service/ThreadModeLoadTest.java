@@ -0,0 +1,181 @@
+package com.goatyang.cmbackend.service;
+
+import com.goatyang.cmbackend.model.User;
+import com.goatyang.cmbackend.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 平台线程池与 virtual-threads 配置下 Tomcat 的请求执行器（每请求一个虚拟线程）处理同一批阻塞型请求：
+ * 每个请求先模拟一次 GitHub HTTP 调用（阻塞50ms），再创建评论并读取文章第一页评论。
+ * 校验请求确实运行在虚拟线程上、同时处理中的请求数不受 Tomcat 默认线程数限制，而数据库并发由连接池限制：
+ * 占用的连接数不超过连接池大小、有请求排队等待连接，且全部请求都在连接超时内完成。两种模式的吞吐量记录在日志中。
+ * 需要 JRE 21+，耗时较长，只在显式开启时运行：mvn test -Dtest=ThreadModeLoadTest -Dcmbackend.load-tests=true
+ */
+@Slf4j
+@Tag("load")
+@EnabledForJreRange(min = JRE.JAVA_21)
+@EnabledIfSystemProperty(named = "cmbackend.load-tests", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.maximum-pool-size=" + ThreadModeLoadTest.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=30000"
+})
+@ActiveProfiles({"test", "virtual-threads"})
+class ThreadModeLoadTest {
+
+    static final int POOL_SIZE = 10;
+    private static final int REQUESTS = 1000;
+    // Tomcat 默认最大线程数
+    private static final int PLATFORM_THREADS = 200;
+    private static final long REMOTE_CALL_MILLIS = 50;
+    private static final String ARTICLE = "thread-mode-article";
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ServletWebServerApplicationContext applicationContext;
+
+    private Long githubId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setGithubId(System.nanoTime());
+        user.setUsername("thread-mode-user");
+        githubId = userRepository.save(user).getGithubId();
+    }
+
+    @Test
+    void threadPerRequestExceedsPlatformPoolWhileConnectionPoolBoundsDatabase() throws Exception {
+        ThreadPoolTaskExecutor platform = new ThreadPoolTaskExecutor();
+        platform.setCorePoolSize(PLATFORM_THREADS);
+        platform.setMaxPoolSize(PLATFORM_THREADS);
+        platform.setQueueCapacity(REQUESTS);
+        platform.initialize();
+        // virtual-threads 配置下 Tomcat 处理请求所用的执行器
+        TomcatWebServer webServer = (TomcatWebServer) applicationContext.getWebServer();
+        TaskExecutorAdapter requestExecutor = new TaskExecutorAdapter(
+                webServer.getTomcat().getConnector().getProtocolHandler().getExecutor());
+        // Thread.isVirtual 是 JDK 21 的API，按 Java 17 编译时通过反射调用
+        Method isVirtual = Thread.class.getMethod("isVirtual");
+
+        try {
+            LoadResult pooled = run(platform, () -> false);
+            LoadResult perRequest = run(requestExecutor, () -> (Boolean) isVirtual.invoke(Thread.currentThread()));
+
+            assertEquals(REQUESTS, perRequest.completed);
+            assertEquals(REQUESTS, perRequest.onVirtualThreads, "请求没有运行在虚拟线程上");
+            assertTrue(perRequest.peakInFlight > PLATFORM_THREADS,
+                    "同时处理中的请求数未超过平台线程池大小: " + perRequest.peakInFlight);
+            assertTrue(perRequest.peakActiveConnections <= POOL_SIZE,
+                    "占用的连接数超过连接池大小: " + perRequest.peakActiveConnections);
+            assertTrue(perRequest.peakAwaitingConnection > 0, "没有请求排队等待连接");
+
+            log.info("{} requests ({}ms remote call each): platform({} threads) {} req/s, "
+                            + "virtual threads {} req/s with {} in flight, peak active connections {}/{}, "
+                            + "peak awaiting {}",
+                    REQUESTS, REMOTE_CALL_MILLIS, PLATFORM_THREADS, Math.round(pooled.opsPerSec),
+                    Math.round(perRequest.opsPerSec), perRequest.peakInFlight,
+                    perRequest.peakActiveConnections, POOL_SIZE, perRequest.peakAwaitingConnection);
+        } finally {
+            platform.shutdown();
+        }
+    }
+
+    /** 执行全部请求，同时采样同时处理中的请求数与连接池状态 */
+    private LoadResult run(AsyncTaskExecutor executor, Callable<Boolean> onVirtualThread) throws Exception {
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        AtomicInteger peakActive = new AtomicInteger();
+        AtomicInteger peakAwaiting = new AtomicInteger();
+        AtomicInteger onVirtualThreads = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                peakActive.accumulateAndGet(pool.getActiveConnections(), Math::max);
+                peakAwaiting.accumulateAndGet(pool.getThreadsAwaitingConnection(), Math::max);
+                LockSupport.parkNanos(100_000);
+            }
+        });
+        sampler.start();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(REQUESTS);
+        int completed = 0;
+        long begin;
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (onVirtualThread.call()) {
+                        onVirtualThreads.incrementAndGet();
+                    }
+                    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        // 模拟 GitHub OAuth 等远程HTTP调用
+                        TimeUnit.MILLISECONDS.sleep(REMOTE_CALL_MILLIS);
+                        commentService.createComment(githubId, ARTICLE, "load");
+                        commentService.getCommentPageByArticlePath(ARTICLE, null, CommentService.DEFAULT_PAGE_SIZE);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+                completed++;
+            }
+        } finally {
+            running.set(false);
+            sampler.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        return new LoadResult(completed, onVirtualThreads.get(), REQUESTS / seconds,
+                peakInFlight.get(), peakActive.get(), peakAwaiting.get());
+    }
+
+    private record LoadResult(int completed, int onVirtualThreads, double opsPerSec, int peakInFlight,
+                              int peakActiveConnections, int peakAwaitingConnection) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.goatyang.cmbackend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 时间窗口内按键计数：去重、窗口滑动，以及记录时间乱序时的清理
+ */
+class WindowedOccurrencesTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private final WindowedOccurrences<String> occurrences = new WindowedOccurrences<>(Duration.ofMinutes(1), 100);
+
+    @Test
+    void countsDistinctCommentsPerKey() {
+        assertEquals(1, occurrences.record("a", 1L, T0));
+        assertEquals(2, occurrences.record("a", 2L, T0.plusSeconds(10)));
+        // 同一评论重复记录只算一次
+        assertEquals(2, occurrences.record("a", 2L, T0.plusSeconds(20)));
+        assertEquals(1, occurrences.record("b", 3L, T0.plusSeconds(20)));
+    }
+
+    @Test
+    void dropsRecordsOutsideWindow() {
+        occurrences.record("a", 1L, T0);
+        occurrences.record("a", 2L, T0.plusSeconds(30));
+        assertEquals(2, occurrences.record("a", 3L, T0.plusSeconds(60)));
+        assertEquals(1, occurrences.record("a", 4L, T0.plusSeconds(200)));
+    }
+
+    @Test
+    void prunesByTimestampWhenRecordedOutOfOrder() {
+        occurrences.record("a", 1L, T0.plusSeconds(50));
+        // 较早的评论较晚记录，排在较新的记录之后
+        occurrences.record("a", 2L, T0);
+        // 窗口为 (T0+40s, T0+100s]：评论1仍在窗口内，评论2已过期
+        assertEquals(2, occurrences.record("a", 3L, T0.plusSeconds(100)));
+    }
+}
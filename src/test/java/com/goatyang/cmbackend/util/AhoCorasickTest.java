@@ -0,0 +1,50 @@
+package com.goatyang.cmbackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 多模式匹配：经典的 he/she/his/hers 关键词集合，覆盖重叠、互为前后缀与失败链上的命中
+ */
+class AhoCorasickTest {
+
+    private final AhoCorasick matcher = new AhoCorasick(List.of("he", "she", "his", "hers"));
+
+    @Test
+    void findsKeywordEndingFirst() {
+        // "ushers" 中 she 与 he 同时在下标3结束，返回当前状态自身的关键词 she
+        assertEquals("she", matcher.findFirst("ushers"));
+        assertEquals("his", matcher.findFirst("ahishers"));
+        assertEquals("he", matcher.findFirst("hers"));
+    }
+
+    @Test
+    void followsFailureLinksIntoOtherKeywords() {
+        // 第二个 h 失配后回到 h 状态再命中 his；"sh" 遇到 h 失配后回到 h 状态再命中 he
+        assertEquals("his", matcher.findFirst("hhis"));
+        assertEquals("he", matcher.findFirst("shhe"));
+        // "he" 不是关键词但失败链上的 "e" 是，命中需合并到当前状态
+        assertEquals("e", new AhoCorasick(List.of("hers", "e")).findFirst("her"));
+    }
+
+    @Test
+    void returnsNullWithoutMatch() {
+        assertNull(matcher.findFirst("hsih"));
+        assertNull(matcher.findFirst(""));
+    }
+
+    @Test
+    void ignoresEmptyKeywords() {
+        AhoCorasick empty = new AhoCorasick(Arrays.asList("", null));
+        assertTrue(empty.isEmpty());
+        assertNull(empty.findFirst("anything"));
+        assertFalse(matcher.isEmpty());
+    }
+}
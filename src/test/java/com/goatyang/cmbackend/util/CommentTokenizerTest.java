@@ -0,0 +1,57 @@
+package com.goatyang.cmbackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分词规则：中日韩字符按二元组切分、字母数字按连续串切分，索引词项另含单字一元组
+ */
+class CommentTokenizerTest {
+
+    @Test
+    void splitsCjkRunsIntoBigrams() {
+        assertEquals(List.of("点赞", "赞数"), List.copyOf(CommentTokenizer.terms("点赞数")));
+    }
+
+    @Test
+    void keepsLoneCjkCharacterAsUnigram() {
+        assertEquals(List.of("赞", "ok"), List.copyOf(CommentTokenizer.terms("赞 OK")));
+    }
+
+    @Test
+    void splitsMixedTextAndLowercasesWords() {
+        assertEquals(List.of("spring", "boot", "的缓", "缓存", "v2"),
+                List.copyOf(CommentTokenizer.terms("Spring-Boot的缓存 v2!")));
+    }
+
+    @Test
+    void dropsOverlongWords() {
+        String longWord = "a".repeat(41);
+        assertEquals(List.of("short"), List.copyOf(CommentTokenizer.terms(longWord + " short")));
+        assertTrue(CommentTokenizer.terms(null).isEmpty());
+    }
+
+    @Test
+    void handlesSupplementaryCharacters() {
+        // "𠮷" 在基本平面之外，占两个char
+        assertEquals(List.of("𠮷野", "野家"), List.copyOf(CommentTokenizer.terms("𠮷野家")));
+        assertEquals(Set.of("𠮷", "野", "家", "𠮷野", "野家"), CommentTokenizer.indexTerms("𠮷野家"));
+    }
+
+    @Test
+    void indexTermsAddCjkUnigrams() {
+        assertEquals(Set.of("点", "赞", "数", "点赞", "赞数", "ok"), CommentTokenizer.indexTerms("点赞数 OK"));
+        // 单字查询的词项都在索引词项中
+        assertTrue(CommentTokenizer.indexTerms("点赞数").containsAll(CommentTokenizer.terms("赞")));
+    }
+
+    @Test
+    void normalizeKeepsOnlyLettersAndDigits() {
+        assertEquals("加微信abc1", CommentTokenizer.normalize("加 微 信！ABC-1"));
+    }
+}